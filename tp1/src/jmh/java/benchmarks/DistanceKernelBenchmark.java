@@ -0,0 +1,86 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * All-pairs (j > i) neighbor count with the sqrt-based test the engines used before DistanceKernel,
+ * against DistanceKernel.slack over the same structure-of-arrays buffers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceKernelBenchmark {
+    private static final long SEED = 20250510L;
+    private static final double RADIUS = 0.25;
+
+    private static final MethodHandle NEW_KERNEL = Tp1.constructor("DistanceKernel", double.class, double.class, boolean.class);
+    private static final MethodHandle SLACK = Tp1.method("DistanceKernel", "slack",
+            double.class, double.class, double.class, double[].class, double[].class, double[].class, int.class, int.class, double[].class);
+
+    @Param({"1000", "4000"})
+    public int n;
+
+    @Param({"0.5"})
+    public double density;
+
+    @Param({"1.0"})
+    public double rc;
+
+    @Param({"true", "false"})
+    public boolean periodic;
+
+    private double l;
+    private double[] x;
+    private double[] y;
+    private double[] radius;
+    private double[] slack;
+    private Object kernel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        l = Math.sqrt(n / density);
+        Random random = new Random(SEED);
+        x = new double[n];
+        y = new double[n];
+        radius = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * l;
+            y[i] = random.nextDouble() * l;
+            radius[i] = RADIUS;
+        }
+        slack = new double[n];
+        kernel = NEW_KERNEL.invoke(l, rc, periodic);
+    }
+
+    @Benchmark
+    public int sqrtDistance() {
+        int neighbors = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double dx = periodic ? Math.min(Math.abs(x[i] - x[j]), l - Math.abs(x[i] - x[j])) : Math.abs(x[i] - x[j]);
+                double dy = periodic ? Math.min(Math.abs(y[i] - y[j]), l - Math.abs(y[i] - y[j])) : Math.abs(y[i] - y[j]);
+                if (Math.sqrt(dx * dx + dy * dy) - radius[i] - radius[j] <= rc) neighbors++;
+            }
+        }
+        return neighbors;
+    }
+
+    @Benchmark
+    public int squaredKernel() throws Throwable {
+        int neighbors = 0;
+        for (int i = 0; i < n; i++) {
+            SLACK.invoke(kernel, x[i], y[i], radius[i], x, y, radius, i + 1, n, slack);
+            for (int k = 0; k < n - i - 1; k++) {
+                if (slack[k] <= 0) neighbors++;
+            }
+        }
+        return neighbors;
+    }
+}
@@ -0,0 +1,134 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Neighbor search engines over in-process generated inputs (fixed seed, so every run and every commit
+ * sees the same particles). Density is particles per unit area, so L = sqrt(N / density); m = 0 lets
+ * GridSizer pick M.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighborSearchBenchmark {
+    private static final long SEED = 20250510L;
+    private static final double RADIUS = 0.25;
+
+    private static final Class<?> PARTICLE_ARRAYS = Tp1.type("ParticleArrays");
+    private static final MethodHandle NEW_PARTICLE_ARRAYS = Tp1.constructor("ParticleArrays", double[].class, double[].class, double[].class);
+    private static final MethodHandle NEW_PARTICLE_INPUT = Tp1.constructor("ParticleInput", int.class, double.class, PARTICLE_ARRAYS);
+    private static final MethodHandle TO_PARTICLE_LIST = Tp1.method("ParticleInput", "toParticleList");
+    private static final MethodHandle OPTIMAL_M = Tp1.method("GridSizer", "optimalM", int.class, double.class, double.class, double.class, boolean.class);
+    private static final Class<?> DOMAIN = Tp1.type("Domain");
+    private static final MethodHandle NEW_DOMAIN = Tp1.constructor("Domain", int.class, int.class, double.class, double.class, boolean.class);
+    private static final MethodHandle PARTICLE_CELL = Tp1.method("Main", "getParticleCell", Tp1.type("Particle"), DOMAIN);
+    private static final MethodHandle NEW_BRUTE_FORCE = Tp1.constructor("BruteForceNeighborFinder", DOMAIN);
+    private static final MethodHandle BRUTE_FORCE = Tp1.method("BruteForceNeighborFinder", "findNeighbors", PARTICLE_ARRAYS);
+    private static final MethodHandle CIM_MAP = Tp1.method("Main", "findNeighborsCIM", List.class, Map.class, DOMAIN);
+    private static final MethodHandle NEW_CIM = Tp1.constructor("CellIndexMethod", DOMAIN);
+    private static final MethodHandle CIM = Tp1.method("CellIndexMethod", "findNeighbors", PARTICLE_ARRAYS);
+    private static final MethodHandle NEW_PARALLEL_CIM = Tp1.constructor("ParallelCellIndexMethod", DOMAIN, ForkJoinPool.class);
+    private static final MethodHandle PARALLEL_CIM = Tp1.method("ParallelCellIndexMethod", "findNeighbors", PARTICLE_ARRAYS);
+    private static final MethodHandle NEW_MULTI_LEVEL_CIM = Tp1.constructor("MultiLevelCellIndexMethod", DOMAIN);
+    private static final MethodHandle MULTI_LEVEL_CIM = Tp1.method("MultiLevelCellIndexMethod", "findNeighbors", PARTICLE_ARRAYS);
+
+    @Param({"1000", "10000"})
+    public int n;
+
+    @Param({"0.05", "0.5"})
+    public double density;
+
+    @Param({"0"})
+    public int m;
+
+    @Param({"1.0"})
+    public double rc;
+
+    @Param({"true", "false"})
+    public boolean periodic;
+
+    private Object domain;
+    private Object arrays;
+    private List<?> particles;
+    private Map<Object, List<Object>> particlesByCell;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        double l = Math.sqrt(n / density);
+        Random random = new Random(SEED);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] radius = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * l;
+            y[i] = random.nextDouble() * l;
+            radius[i] = RADIUS;
+        }
+        arrays = NEW_PARTICLE_ARRAYS.invoke(x, y, radius);
+        particles = (List<?>) TO_PARTICLE_LIST.invoke(NEW_PARTICLE_INPUT.invoke(n, l, arrays));
+
+        int gridM = m > 0 ? m : (int) OPTIMAL_M.invoke(n, l, rc, RADIUS, periodic);
+        domain = NEW_DOMAIN.invoke(gridM, n, l, rc, periodic);
+        particlesByCell = new HashMap<>();
+        for (Object particle : particles) {
+            particlesByCell.computeIfAbsent(PARTICLE_CELL.invoke(particle, domain), c -> new ArrayList<>()).add(particle);
+        }
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Object bruteForce() throws Throwable {
+        return BRUTE_FORCE.invoke(NEW_BRUTE_FORCE.invoke(domain), arrays);
+    }
+
+    @Benchmark
+    public Object cimMap() throws Throwable {
+        return CIM_MAP.invoke(particles, particlesByCell, domain);
+    }
+
+    @Benchmark
+    public Object cimArrays() throws Throwable {
+        return CIM.invoke(NEW_CIM.invoke(domain), arrays);
+    }
+
+    @Benchmark
+    public Object cimParallel() throws Throwable {
+        return PARALLEL_CIM.invoke(NEW_PARALLEL_CIM.invoke(domain, pool), arrays);
+    }
+
+    @Benchmark
+    public Object cimMultiLevel() throws Throwable {
+        return MULTI_LEVEL_CIM.invoke(NEW_MULTI_LEVEL_CIM.invoke(domain), arrays);
+    }
+
+    /**
+     * Runs every benchmark and writes the results as JSON (default jmh-result.json) for tracking across commits.
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(NeighborSearchBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 0 ? args[0] : "jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CellIndexMethod on a million particles in file (random) order against the same particles reordered
+ * along a Morton or Hilbert curve over the cells. Run with -prof perfnorm (Linux) to see the cache
+ * misses behind the difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParticleOrderingBenchmark {
+    private static final long SEED = 20250510L;
+    private static final double RADIUS = 0.25;
+
+    private static final Class<?> PARTICLE_ARRAYS = Tp1.type("ParticleArrays");
+    private static final Class<?> DOMAIN = Tp1.type("Domain");
+    private static final Class<?> CURVE = Tp1.type("ParticleOrdering$Curve");
+    private static final MethodHandle NEW_PARTICLE_ARRAYS = Tp1.constructor("ParticleArrays", double[].class, double[].class, double[].class);
+    private static final MethodHandle OPTIMAL_M = Tp1.method("GridSizer", "optimalM", int.class, double.class, double.class, double.class, boolean.class);
+    private static final MethodHandle NEW_DOMAIN = Tp1.constructor("Domain", int.class, int.class, double.class, double.class, boolean.class);
+    private static final MethodHandle ALONG_CURVE = Tp1.method("ParticleOrdering", "alongCurve", PARTICLE_ARRAYS, DOMAIN, CURVE);
+    private static final MethodHandle ORDERED_PARTICLES = Tp1.method("ParticleOrdering", "getParticles");
+    private static final MethodHandle RESTORE = Tp1.method("ParticleOrdering", "restore", Tp1.type("NeighborList"));
+    private static final MethodHandle NEW_CIM = Tp1.constructor("CellIndexMethod", DOMAIN);
+    private static final MethodHandle CIM = Tp1.method("CellIndexMethod", "findNeighbors", PARTICLE_ARRAYS);
+
+    @Param({"1000000"})
+    public int n;
+
+    @Param({"0.5"})
+    public double density;
+
+    @Param({"1.0"})
+    public double rc;
+
+    @Param({"FILE", "MORTON", "HILBERT"})
+    public String order;
+
+    private Object domain;
+    private Object arrays;
+    private Object ordering;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setUp() throws Throwable {
+        double l = Math.sqrt(n / density);
+        Random random = new Random(SEED);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] radius = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * l;
+            y[i] = random.nextDouble() * l;
+            radius[i] = RADIUS;
+        }
+        arrays = NEW_PARTICLE_ARRAYS.invoke(x, y, radius);
+        domain = NEW_DOMAIN.invoke((int) OPTIMAL_M.invoke(n, l, rc, RADIUS, true), n, l, rc, true);
+        if (!order.equals("FILE")) {
+            ordering = ALONG_CURVE.invoke(arrays, domain, Enum.valueOf((Class) CURVE, order));
+            arrays = ORDERED_PARTICLES.invoke(ordering);
+        }
+    }
+
+    @Benchmark
+    public Object cimArrays() throws Throwable {
+        return CIM.invoke(NEW_CIM.invoke(domain), arrays);
+    }
+
+    // Search plus the renumbering back to file order that the output needs
+    @Benchmark
+    public Object cimArraysRestored() throws Throwable {
+        Object neighbors = CIM.invoke(NEW_CIM.invoke(domain), arrays);
+        return ordering == null ? neighbors : RESTORE.invoke(ordering, neighbors);
+    }
+}
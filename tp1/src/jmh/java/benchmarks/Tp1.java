@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Access to the tp1 classes, which live in the default package. JMH refuses benchmarks in the default
+ * package and named packages cannot import from it, so the engines are reached through method handles.
+ */
+final class Tp1 {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Tp1() {}
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("tp1 class not on the classpath: " + name, e);
+        }
+    }
+
+    static MethodHandle method(String owner, String name, Class<?>... parameters) {
+        try {
+            Method method = type(owner).getDeclaredMethod(name, parameters);
+            method.setAccessible(true);
+            return LOOKUP.unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing tp1 method " + owner + "." + name, e);
+        }
+    }
+
+    static MethodHandle constructor(String owner, Class<?>... parameters) {
+        try {
+            Constructor<?> constructor = type(owner).getDeclaredConstructor(parameters);
+            constructor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(constructor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing tp1 constructor of " + owner, e);
+        }
+    }
+}
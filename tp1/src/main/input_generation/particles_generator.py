@@ -3,11 +3,12 @@ import sys
 
 
 if len(sys.argv) < 3 or not sys.argv[1].isdigit() or not sys.argv[2].replace('.', '').isdigit():
-    print("Please provide the number of particles to generate (int) and the grid length L (decimal)")
+    print("Please provide the number of particles to generate (int), the grid length L (decimal) and optionally 3d")
     sys.exit(1)
 
 num = sys.argv[1]
 l = sys.argv[2]
+three_d = len(sys.argv) > 3 and sys.argv[3].lower() == "3d"
 
 fileName = "Dynamic"+sys.argv[1]+".txt"
 print("Generating file "+fileName)
@@ -16,5 +17,9 @@ f.write("0\n")
 for i in range(0, int(num)):
     x = np.random.uniform(0, float(l))
     y = np.random.uniform(0, float(l))
-    f.write(str(x)+" "+str(y)+"\n")
+    if three_d:
+        z = np.random.uniform(0, float(l))
+        f.write(str(x)+" "+str(y)+" "+str(z)+"\n")
+    else:
+        f.write(str(x)+" "+str(y)+"\n")
 f.close()
\ No newline at end of file
@@ -0,0 +1,102 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Sweeps N x Rc x M grids in a single JVM. Every combination gets its own Domain and runs on a
+ * thread pool next to the others; each one is warmed up once before timing, so later combinations
+ * reuse JIT-compiled code instead of paying a new JVM start per run.
+ */
+public class BatchRunner {
+    private static final long SEED = 12345L;
+
+    private final double l;
+    private final double radius;
+    private final boolean periodic;
+    private final int repetitions;
+    private final Map<Integer, ParticleArrays> inputs = new ConcurrentHashMap<>();
+
+    public BatchRunner(double l, double radius, boolean periodic, int repetitions) {
+        this.l = l;
+        this.radius = radius;
+        this.periodic = periodic;
+        this.repetitions = repetitions;
+    }
+
+    /**
+     * Same particles for a given N on every run: uniform positions in [0, L) from a fixed seed.
+     */
+    ParticleArrays particlesFor(int n) {
+        return inputs.computeIfAbsent(n, count -> {
+            Random random = new Random(SEED + count);
+            double[] x = new double[count];
+            double[] y = new double[count];
+            double[] r = new double[count];
+            for (int i = 0; i < count; i++) {
+                x[i] = random.nextDouble() * l;
+                y[i] = random.nextDouble() * l;
+                r[i] = radius;
+            }
+            return new ParticleArrays(x, y, r);
+        });
+    }
+
+    String run(int n, double rc, int m) {
+        int gridM = m > 0 ? m : GridSizer.optimalM(n, l, rc, radius, periodic);
+        Domain domain = new Domain(gridM, n, l, rc, periodic);
+        if (domain.getCellLen() < rc + 2 * radius) {
+            return String.format(Locale.ROOT, "%d,%s,%d,invalid,,", n, rc, gridM);
+        }
+        ParticleArrays particles = particlesFor(n);
+        CellIndexMethod cim = new CellIndexMethod(domain);
+        NeighborList neighbors = cim.findNeighbors(particles); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < repetitions; i++) {
+            long startTime = System.nanoTime();
+            neighbors = cim.findNeighbors(particles);
+            best = Math.min(best, System.nanoTime() - startTime);
+        }
+        return String.format(Locale.ROOT, "%d,%s,%d,%.3f,%d,%d", n, rc, gridM, best / 1e6, cim.getCandidatePairs(), neighbors.getPairCount());
+    }
+
+    public List<String> sweep(int[] ns, double[] rcs, int[] ms, ExecutorService executor) throws InterruptedException, ExecutionException {
+        List<Future<String>> rows = new ArrayList<>();
+        for (int n : ns) {
+            for (double rc : rcs) {
+                for (int m : ms) {
+                    rows.add(executor.submit(() -> run(n, rc, m)));
+                }
+            }
+        }
+        List<String> results = new ArrayList<>(rows.size());
+        for (Future<String> row : rows) {
+            results.add(row.get());
+        }
+        return results;
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        //Command line arguments: L, particle radius, periodic, comma-separated N values, comma-separated Rc values,
+        //comma-separated M values (auto or 0 lets GridSizer choose), optional thread count, optional repetitions
+        if (args.length < 6) {
+            System.out.println("Usage: java BatchRunner <L> <radius> <periodic> <N,...> <Rc,...> <M|auto,...> [threads] [repetitions]");
+            return;
+        }
+        double l = Double.parseDouble(args[0]);
+        double radius = Double.parseDouble(args[1]);
+        boolean periodic = Boolean.parseBoolean(args[2]);
+        int[] ns = Arrays.stream(args[3].split(",")).mapToInt(Integer::parseInt).toArray();
+        double[] rcs = Arrays.stream(args[4].split(",")).mapToDouble(Double::parseDouble).toArray();
+        int[] ms = Arrays.stream(args[5].split(",")).mapToInt(s -> s.equalsIgnoreCase("auto") ? 0 : Integer.parseInt(s)).toArray();
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+        int repetitions = args.length > 7 ? Integer.parseInt(args[7]) : 5;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<String> rows = new BatchRunner(l, radius, periodic, repetitions).sweep(ns, rcs, ms, executor);
+            System.out.println("n,rc,m,best_ms,pair_checks,pairs");
+            rows.forEach(System.out::println);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
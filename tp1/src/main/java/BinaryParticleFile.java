@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary replacement for a static/dynamic pair. Little endian layout:
+ * <pre>
+ * int32 magic "TP1P" | int32 version | int64 N | float64 L | float64 radius[N] | float64 x[N] | float64 y[N]
+ * </pre>
+ * Every column is 8-byte aligned, so numpy can open it with memmap(dtype='&lt;f8', offset=24 + 8*N*k).
+ */
+public class BinaryParticleFile {
+    static final int MAGIC = 0x50315054; // "TP1P" read as little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    private static final int CHUNK_DOUBLES = 1 << 16;
+
+    private BinaryParticleFile() {}
+
+    public static void write(Path path, ParticleInput input) throws IOException {
+        ParticleArrays particles = input.getParticles();
+        if (!input.isSquare()) throw new IOException("Binary particle files only hold square boxes");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(particles.size()).putDouble(input.getL()).flip();
+            writeFully(channel, header);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_DOUBLES * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (double[] column : new double[][]{particles.getRadius(), particles.getX(), particles.getY()}) {
+                for (int from = 0; from < column.length; from += CHUNK_DOUBLES) {
+                    int count = Math.min(CHUNK_DOUBLES, column.length - from);
+                    buffer.clear();
+                    buffer.asDoubleBuffer().put(column, from, count);
+                    buffer.limit(count * Double.BYTES);
+                    writeFully(channel, buffer);
+                }
+            }
+        }
+    }
+
+    public static ParticleInput read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException("Not a binary particle file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported binary particle file version " + version);
+            long n = header.getLong();
+            double l = header.getDouble();
+            if (n > Integer.MAX_VALUE || channel.size() < HEADER_BYTES + 3 * n * Double.BYTES) {
+                throw new IOException("Truncated or oversized binary particle file: " + path);
+            }
+
+            double[][] columns = new double[3][(int) n];
+            for (int k = 0; k < 3; k++) {
+                long offset = HEADER_BYTES + k * n * Double.BYTES;
+                MappedByteBuffer column = channel.map(FileChannel.MapMode.READ_ONLY, offset, n * Double.BYTES);
+                column.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(columns[k]);
+            }
+            return new ParticleInput((int) n, l, new ParticleArrays(columns[1], columns[2], columns[0]));
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        //Command line arguments: static_file_path, dynamic_file_path, output_binary_path
+        if (args.length < 3) {
+            System.out.println("Usage: java BinaryParticleFile <static_file> <dynamic_file> <output.bin>");
+            return;
+        }
+        ParticleInput input = FastInputReader.read(Path.of(args[0]), Path.of(args[1]));
+        write(Path.of(args[2]), input);
+        System.out.println("Wrote " + input.getParticles().size() + " particles to " + args[2]);
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * All-pairs search over flat arrays: particle i is tested against every j > i with DistanceKernel.slack,
+ * so each pair is examined once. Needs no grid, which makes it the reference for the other engines, and
+ * works in 2D and 3D. Particles are split in blocks of TILE; a row block is tested tile by tile against
+ * the column blocks from its own onwards, so the column tile stays in cache for all the rows of the
+ * block. With a ForkJoinPool every row block is a task with its own PairBuffer, merged in block order.
+ */
+public class BruteForceNeighborFinder implements NeighborFinder {
+    // x, y and radius of a tile plus its slack take 16 KB, which fits in L1
+    static final int TILE = 512;
+
+    private final DistanceKernel kernel;
+    private final boolean threeDimensional;
+    private final ForkJoinPool pool;
+    private long candidatePairs;
+
+    public BruteForceNeighborFinder(Domain domain) {
+        this(domain, null);
+    }
+
+    // A null pool searches on the calling thread
+    public BruteForceNeighborFinder(Domain domain, ForkJoinPool pool) {
+        this.kernel = new DistanceKernel(domain);
+        this.threeDimensional = domain.getDimensions() == 3;
+        this.pool = pool;
+    }
+
+    @Override
+    public NeighborList findNeighbors(ParticleArrays particles) {
+        checkDimensions(particles);
+        int n = particles.size();
+        int blocks = (n + TILE - 1) / TILE;
+        PairBuffer[] buffers = new PairBuffer[blocks];
+        if (pool == null) {
+            double[] slack = new double[TILE];
+            for (int block = 0; block < blocks; block++) {
+                buffers[block] = new PairBuffer(TILE);
+                searchBlock(particles, block, slack, buffers[block]);
+            }
+        } else {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(blocks);
+            for (int block = 0; block < blocks; block++) {
+                int rowBlock = block;
+                PairBuffer buffer = new PairBuffer(TILE);
+                buffers[block] = buffer;
+                tasks.add(pool.submit(() -> searchBlock(particles, rowBlock, new double[TILE], buffer)));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+        candidatePairs = (long) n * (n - 1) / 2;
+        return NeighborList.fromPairs(n, buffers);
+    }
+
+    /**
+     * Streams every neighbor pair to consumer on the calling thread and returns how many there were;
+     * nothing is allocated per pair.
+     */
+    public long forEachPair(ParticleArrays particles, PairConsumer consumer) {
+        checkDimensions(particles);
+        int n = particles.size();
+        long[] found = new long[1];
+        PairConsumer counting = consumer.andThen(PairConsumer.ignoringDistance((i, j, distance) -> found[0]++));
+        double[] slack = new double[TILE];
+        for (int block = 0; block * TILE < n; block++) {
+            searchBlock(particles, block, slack, counting);
+        }
+        candidatePairs = (long) n * (n - 1) / 2;
+        return found[0];
+    }
+
+    private void checkDimensions(ParticleArrays particles) {
+        if (threeDimensional && particles.getZ() == null) throw new IllegalArgumentException("Particles have no z coordinate");
+    }
+
+    // Pairs (i, j) with i in the row block and j > i
+    private void searchBlock(ParticleArrays particles, int block, double[] slack, PairConsumer pairs) {
+        int n = particles.size();
+        int rowFrom = block * TILE;
+        int rowTo = Math.min(n, rowFrom + TILE);
+        for (int colFrom = rowFrom; colFrom < n; colFrom += TILE) {
+            int colTo = Math.min(n, colFrom + TILE);
+            for (int i = rowFrom; i < rowTo; i++) {
+                int from = Math.max(colFrom, i + 1);
+                if (from < colTo) collect(particles, i, from, colTo, slack, pairs);
+            }
+        }
+    }
+
+    // Tests i against [from, to) and passes on the pairs with slack <= 0
+    private void collect(ParticleArrays particles, int i, int from, int to, double[] slack, PairConsumer pairs) {
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] z = particles.getZ();
+        double[] r = particles.getRadius();
+        if (threeDimensional) {
+            kernel.slack(x[i], y[i], z[i], r[i], x, y, z, r, from, to, slack);
+        } else {
+            kernel.slack(x[i], y[i], r[i], x, y, r, from, to, slack);
+        }
+        boolean withDistance = pairs.needsDistance();
+        for (int j = from; j < to; j++) {
+            if (slack[j - from] > 0) continue;
+            double distance = !withDistance ? Double.NaN : threeDimensional ? kernel.distance(x[i], y[i], z[i], r[i], x[j], y[j], z[j], r[j])
+                    : kernel.distance(x[i], y[i], r[i], x[j], y[j], r[j]);
+            pairs.accept(i, j, distance);
+        }
+    }
+
+    /**
+     * Sorted neighbors of particle i, found with a single O(N) scan.
+     */
+    public int[] neighborsOf(ParticleArrays particles, int i) {
+        checkDimensions(particles);
+        int n = particles.size();
+        PairBuffer pairs = new PairBuffer();
+        double[] slack = new double[TILE];
+        for (int from = 0; from < n; from += TILE) {
+            collect(particles, i, from, Math.min(n, from + TILE), slack, pairs);
+        }
+        int[] neighbors = new int[pairs.size()];
+        int count = 0;
+        for (int p = 0; p < pairs.size(); p++) {
+            if (pairs.second(p) != i) neighbors[count++] = pairs.second(p);
+        }
+        return Arrays.copyOf(neighbors, count);
+    }
+
+    /**
+     * Checks the lists of up to samples particles drawn at random (seeded) against neighborsOf, each
+     * sampled particle scanned once for all the candidates. Returns, per candidate, the first particle
+     * whose list differs or -1 if they all match. Costs O(samples * N) instead of the O(N²) of a full
+     * search.
+     */
+    public int[] findMismatches(ParticleArrays particles, int samples, long seed, NeighborList... candidates) {
+        int n = particles.size();
+        int[] mismatches = new int[candidates.length];
+        Arrays.fill(mismatches, -1);
+        Random random = new Random(seed);
+        for (int s = 0; s < Math.min(samples, n); s++) {
+            int i = samples >= n ? s : random.nextInt(n);
+            int[] expected = neighborsOf(particles, i);
+            for (int c = 0; c < candidates.length; c++) {
+                int[] offsets = candidates[c].getOffsets();
+                int[] indices = candidates[c].getIndices();
+                if (mismatches[c] < 0 && !Arrays.equals(expected, 0, expected.length, indices, offsets[i], offsets[i + 1])) {
+                    mismatches[c] = i;
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    @Override
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+}
@@ -3,12 +3,18 @@ import java.util.Objects;
 public class Cell {
     private final int x;
     private final int y;
+    private final int z;
     private final int number;
 
-    public Cell(int x, int y) {
+    public Cell(int x, int y, int m) {
+        this(x, y, 0, m);
+    }
+
+    public Cell(int x, int y, int z, int m) {
         this.x = x;
         this.y = y;
-        this.number = this.x+1+Constants.getM()*this.y;
+        this.z = z;
+        this.number = this.x+1+m*this.y+m*m*this.z;
 
     }
 
@@ -20,6 +26,10 @@ public class Cell {
         return y;
     }
 
+    public int getZ() {
+        return z;
+    }
+
     public int getNumber() {
         return number;
     }
@@ -29,12 +39,12 @@ public class Cell {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Cell cell = (Cell) o;
-        return x == cell.x && y == cell.y && number == cell.number;
+        return x == cell.x && y == cell.y && z == cell.z && number == cell.number;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y, number);
+        return Objects.hash(x, y, z, number);
     }
 
     @Override
@@ -42,6 +52,7 @@ public class Cell {
         return "Cell{" +
                 "x=" + x +
                 ", y=" + y +
+                ", z=" + z +
                 ", number=" + number +
                 '}';
     }
@@ -0,0 +1,230 @@
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Cell Index Method over flat arrays on an Lx x Ly box split into Mx x My cells. Uses the same
+ * half-shell stencil as Main.getNeighbourCells (up, up-right, right, down-right) so every unordered
+ * pair of cells is visited once.
+ */
+public class CellIndexMethod implements NeighborFinder {
+    static final int[] STENCIL_DX = {0, 1, 1, 1};
+    static final int[] STENCIL_DY = {-1, -1, 0, 1};
+
+    private final int mx;
+    private final int my;
+    private final double lx;
+    private final double ly;
+    private final boolean periodicX;
+    private final boolean periodicY;
+    private final DistanceKernel kernel;
+    private long candidatePairs;
+    private SearchStats stats;
+
+    public CellIndexMethod(Domain domain) {
+        this(domain.getM(0), domain.getM(1), domain.getL(0), domain.getL(1), domain.getRc(), domain.isPeriodic(0), domain.isPeriodic(1));
+    }
+
+    public CellIndexMethod(int m, double l, double rc, boolean periodic) {
+        this(m, m, l, l, rc, periodic, periodic);
+    }
+
+    public CellIndexMethod(int mx, int my, double lx, double ly, double rc, boolean periodicX, boolean periodicY) {
+        this.mx = mx;
+        this.my = my;
+        this.lx = lx;
+        this.ly = ly;
+        this.periodicX = periodicX;
+        this.periodicY = periodicY;
+        this.kernel = new DistanceKernel(lx, ly, rc, new boolean[]{periodicX, periodicY});
+    }
+
+    @Override
+    public NeighborList findNeighbors(ParticleArrays particles) {
+        if (stats != null) stats.enter("binning");
+        CellList cells = buildCells(particles);
+        if (stats != null) {
+            stats.recordOccupancy(cells.getCellStart());
+            stats.begin("search");
+        }
+        PairBuffer pairs = new PairBuffer(particles.size());
+        candidatePairs = searchRows(cells, particles, 0, my, pairs);
+        if (stats != null) stats.begin("lists");
+        NeighborList neighbors = NeighborList.fromPairs(particles.size(), pairs);
+        if (stats != null) stats.exit();
+        return neighbors;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Streams every neighbor pair to consumer instead of building a NeighborList and returns how many
+     * pairs were found; only the cell list is allocated, whatever the density.
+     */
+    public long forEachPair(ParticleArrays particles, PairConsumer consumer) {
+        long[] found = new long[1];
+        candidatePairs = searchRows(buildCells(particles), particles, 0, my,
+                consumer.andThen(PairConsumer.ignoringDistance((i, j, distance) -> found[0]++)));
+        return found[0];
+    }
+
+    CellList buildCells(ParticleArrays particles) {
+        return new CellList(particles, mx, my, lx / mx, ly / my);
+    }
+
+    /**
+     * Searches the cells with y in [fromRow, toRow) against their half-shell and returns
+     * the number of candidate pairs examined.
+     */
+    long searchRows(CellList cells, ParticleArrays particles, int fromRow, int toRow, PairConsumer pairs) {
+        int[] neighbourCells = new int[halfShellCapacity()];
+        double[] slack = new double[cells.getMaxOccupancy()];
+        long candidates = 0;
+        for (int cy = fromRow; cy < toRow; cy++) {
+            for (int cx = 0; cx < mx; cx++) {
+                int cell = cx + mx * cy;
+                candidates += checkWithinCell(cells, cell, slack, pairs);
+                int count = halfShell(cx, cy, neighbourCells);
+                for (int k = 0; k < count; k++) {
+                    candidates += checkBetweenCells(cells, cell, neighbourCells[k], slack, pairs);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // With periodic boundaries and fewer than 3 cells along that axis the stencil wraps onto itself
+    private boolean wrapsOntoItself() {
+        return (periodicX && mx < 3) || (periodicY && my < 3);
+    }
+
+    int halfShellCapacity() {
+        return wrapsOntoItself() ? 8 : STENCIL_DX.length;
+    }
+
+    /**
+     * Fills out with the cell numbers of the half-shell of (cx, cy) and returns how many there are.
+     * When the stencil wraps onto itself the distinct cells of the full 3x3 neighbourhood with a
+     * higher number are used instead, which keeps each cell pair unique.
+     */
+    int halfShell(int cx, int cy, int[] out) {
+        int cell = cx + mx * cy;
+        int count = 0;
+        if (wrapsOntoItself()) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int other = neighbourCell(cx + dx, cy + dy);
+                    if (other > cell && !contains(out, count, other)) out[count++] = other;
+                }
+            }
+            return count;
+        }
+        for (int k = 0; k < STENCIL_DX.length; k++) {
+            int other = neighbourCell(cx + STENCIL_DX[k], cy + STENCIL_DY[k]);
+            if (other >= 0) out[count++] = other;
+        }
+        return count;
+    }
+
+    // Cell number of (nx, ny) after wrapping periodic axes, -1 outside an open border
+    private int neighbourCell(int nx, int ny) {
+        if (periodicX) nx = (nx + mx) % mx;
+        if (periodicY) ny = (ny + my) % my;
+        if (nx < 0 || nx >= mx || ny < 0 || ny >= my) return -1;
+        return nx + mx * ny;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int k = 0; k < count; k++) {
+            if (values[k] == value) return true;
+        }
+        return false;
+    }
+
+    private long checkWithinCell(CellList cells, int cell, double[] slack, PairConsumer pairs) {
+        int[] start = cells.getCellStart();
+        int end = start[cell + 1];
+        long candidates = 0;
+        for (int a = start[cell]; a < end; a++) {
+            candidates += collect(cells, a, a + 1, end, slack, pairs);
+        }
+        return candidates;
+    }
+
+    private long checkBetweenCells(CellList cells, int cell, int other, double[] slack, PairConsumer pairs) {
+        int[] start = cells.getCellStart();
+        int end = start[cell + 1];
+        long candidates = 0;
+        for (int a = start[cell]; a < end; a++) {
+            candidates += collect(cells, a, start[other], start[other + 1], slack, pairs);
+        }
+        return candidates;
+    }
+
+    // Tests slot a against slots [from, to) of the cell-ordered arrays and passes on the pairs with slack <= 0
+    private int collect(CellList cells, int a, int from, int to, double[] slack, PairConsumer pairs) {
+        double[] x = cells.getSortedX();
+        double[] y = cells.getSortedY();
+        double[] r = cells.getSortedRadius();
+        int[] members = cells.getCellParticles();
+        kernel.slack(x[a], y[a], r[a], x, y, r, from, to, slack);
+        int i = members[a];
+        boolean withDistance = pairs.needsDistance();
+        for (int b = from; b < to; b++) {
+            if (slack[b - from] > 0) continue;
+            pairs.accept(i, members[b], withDistance ? kernel.distance(x[a], y[a], r[a], x[b], y[b], r[b]) : Double.NaN);
+        }
+        return to - from;
+    }
+
+    boolean isNeighbor(ParticleArrays particles, int i, int j) {
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] r = particles.getRadius();
+        return kernel.isNeighbor(x[i], y[i], r[i], x[j], y[j], r[j]);
+    }
+
+    /**
+     * Times a rectangular domain against the square box it would have to be padded to (side max(Lx, Ly),
+     * open along the padded axis, same cell size) and prints the cells and bytes allocated by each search.
+     */
+    public static void reportPaddingSavings(ParticleArrays particles, Domain domain, int repetitions) {
+        boolean xLonger = domain.getL(0) >= domain.getL(1);
+        double side = Math.max(domain.getL(0), domain.getL(1));
+        int m = Math.max(domain.getM(0), domain.getM(1));
+        CellIndexMethod rectangular = new CellIndexMethod(domain);
+        CellIndexMethod padded = new CellIndexMethod(m, m, side, side, domain.getRc(),
+                xLonger && domain.isPeriodic(0), !xLonger && domain.isPeriodic(1));
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (CellIndexMethod cim : new CellIndexMethod[]{rectangular, padded}) {
+            long best = Long.MAX_VALUE;
+            long allocated = Long.MAX_VALUE;
+            for (int i = 0; i < repetitions; i++) {
+                long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                cim.findNeighbors(particles);
+                best = Math.min(best, System.nanoTime() - start);
+                allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - bytesBefore);
+            }
+            System.out.printf("%s grid %d x %d: %d cells, %.3f ms, %.2f MB allocated%n", cim == rectangular ? "Rectangular" : "Padded square",
+                    cim.mx, cim.my, (long) cim.mx * cim.my, best / 1e6, allocated / 1e6);
+        }
+    }
+
+    public int getMx() {
+        return mx;
+    }
+
+    public int getMy() {
+        return my;
+    }
+
+    @Override
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+}
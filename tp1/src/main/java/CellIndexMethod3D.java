@@ -0,0 +1,168 @@
+/**
+ * Cell Index Method for 3D particles on an M x M x M grid with per-axis periodic boundaries.
+ * Cells are numbered x + M*y + M*M*z and counting-sorted like CellList. The half-shell has 13 cells:
+ * the 2D stencil of Main.getNeighbourCells in the cell's own layer plus the 9 cells of the layer above,
+ * so every unordered pair of cells is visited once.
+ */
+public class CellIndexMethod3D implements NeighborFinder {
+    static final int[] STENCIL_DX = {0, 1, 1, 1, -1, 0, 1, -1, 0, 1, -1, 0, 1};
+    static final int[] STENCIL_DY = {-1, -1, 0, 1, -1, -1, -1, 0, 0, 0, 1, 1, 1};
+    static final int[] STENCIL_DZ = {0, 0, 0, 0, 1, 1, 1, 1, 1, 1, 1, 1, 1};
+
+    private final int m;
+    private final double l;
+    private final boolean[] periodic;
+    private final DistanceKernel kernel;
+    private long candidatePairs;
+    private SearchStats stats;
+
+    public CellIndexMethod3D(Domain domain) {
+        if (domain.getDimensions() != 3) throw new IllegalArgumentException("CellIndexMethod3D needs a 3D domain");
+        this.m = domain.getM();
+        this.l = domain.getL();
+        this.periodic = new boolean[]{domain.isPeriodic(0), domain.isPeriodic(1), domain.isPeriodic(2)};
+        this.kernel = new DistanceKernel(domain);
+    }
+
+    @Override
+    public NeighborList findNeighbors(ParticleArrays particles) {
+        PairBuffer pairs = new PairBuffer(particles.size());
+        forEachPair(particles, pairs);
+        if (stats != null) stats.enter("lists");
+        NeighborList neighbors = NeighborList.fromPairs(particles.size(), pairs);
+        if (stats != null) stats.exit();
+        return neighbors;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Streams every neighbor pair to consumer instead of building a NeighborList and returns how many
+     * pairs were found.
+     */
+    public long forEachPair(ParticleArrays particles, PairConsumer consumer) {
+        if (particles.getZ() == null) throw new IllegalArgumentException("Particles have no z coordinate");
+        int n = particles.size();
+        int cells = m * m * m;
+        double cellLen = l / m;
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] z = particles.getZ();
+        double[] r = particles.getRadius();
+        if (stats != null) stats.enter("binning");
+
+        int[] cellStart = new int[cells + 1];
+        int[] particleCell = new int[n];
+        for (int i = 0; i < n; i++) {
+            int cell = CellList.cellCoord(x[i], cellLen, m) + m * (CellList.cellCoord(y[i], cellLen, m) + m * CellList.cellCoord(z[i], cellLen, m));
+            particleCell[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        int maxOccupancy = 0;
+        for (int c = 0; c < cells; c++) {
+            maxOccupancy = Math.max(maxOccupancy, cellStart[c + 1]);
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] members = new int[n];
+        double[] sx = new double[n];
+        double[] sy = new double[n];
+        double[] sz = new double[n];
+        double[] sr = new double[n];
+        int[] fill = new int[cells];
+        for (int i = 0; i < n; i++) {
+            int cell = particleCell[i];
+            int slot = cellStart[cell] + fill[cell]++;
+            members[slot] = i;
+            sx[slot] = x[i];
+            sy[slot] = y[i];
+            sz[slot] = z[i];
+            sr[slot] = r[i];
+        }
+        if (stats != null) {
+            stats.recordOccupancy(cellStart);
+            stats.begin("search");
+        }
+
+        long[] found = new long[1];
+        PairConsumer pairs = consumer.andThen(PairConsumer.ignoringDistance((i, j, distance) -> found[0]++));
+        double[] slack = new double[maxOccupancy];
+        int[] neighbourCells = new int[wrapsOntoItself() ? cells : STENCIL_DX.length];
+        long candidates = 0;
+        for (int cz = 0; cz < m; cz++) {
+            for (int cy = 0; cy < m; cy++) {
+                for (int cx = 0; cx < m; cx++) {
+                    int cell = cx + m * (cy + m * cz);
+                    int end = cellStart[cell + 1];
+                    if (cellStart[cell] == end) continue;
+                    int count = halfShell(cx, cy, cz, neighbourCells);
+                    for (int a = cellStart[cell]; a < end; a++) {
+                        candidates += collect(a, a + 1, end, sx, sy, sz, sr, members, slack, pairs);
+                        for (int k = 0; k < count; k++) {
+                            int other = neighbourCells[k];
+                            candidates += collect(a, cellStart[other], cellStart[other + 1], sx, sy, sz, sr, members, slack, pairs);
+                        }
+                    }
+                }
+            }
+        }
+        candidatePairs = candidates;
+        if (stats != null) stats.exit();
+        return found[0];
+    }
+
+    // With periodic boundaries and M < 3 the stencil reaches the same cell twice along that axis
+    private boolean wrapsOntoItself() {
+        return m < 3 && (periodic[0] || periodic[1] || periodic[2]);
+    }
+
+    /**
+     * Fills out with the cell numbers of the half-shell of (cx, cy, cz) and returns how many there are.
+     * When the stencil wraps onto itself every cell with a higher number is used instead.
+     */
+    int halfShell(int cx, int cy, int cz, int[] out) {
+        if (wrapsOntoItself()) {
+            int count = 0;
+            for (int c = cx + m * (cy + m * cz) + 1; c < m * m * m; c++) {
+                out[count++] = c;
+            }
+            return count;
+        }
+        int count = 0;
+        for (int k = 0; k < STENCIL_DX.length; k++) {
+            int nx = wrap(cx + STENCIL_DX[k], 0);
+            int ny = wrap(cy + STENCIL_DY[k], 1);
+            int nz = wrap(cz + STENCIL_DZ[k], 2);
+            if (nx < 0 || nx >= m || ny < 0 || ny >= m || nz < 0 || nz >= m) continue;
+            out[count++] = nx + m * (ny + m * nz);
+        }
+        return count;
+    }
+
+    private int wrap(int coord, int axis) {
+        return periodic[axis] ? (coord + m) % m : coord;
+    }
+
+    private int collect(int a, int from, int to, double[] x, double[] y, double[] z, double[] r, int[] members,
+                        double[] slack, PairConsumer pairs) {
+        kernel.slack(x[a], y[a], z[a], r[a], x, y, z, r, from, to, slack);
+        int i = members[a];
+        boolean withDistance = pairs.needsDistance();
+        for (int b = from; b < to; b++) {
+            if (slack[b - from] > 0) continue;
+            pairs.accept(i, members[b], withDistance ? kernel.distance(x[a], y[a], z[a], r[a], x[b], y[b], z[b], r[b]) : Double.NaN);
+        }
+        return to - from;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    @Override
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+}
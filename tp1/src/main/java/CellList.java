@@ -0,0 +1,121 @@
+/**
+ * Flat-array cell list over Mx x My cells. Particle indices are counting-sorted by cell number (x + Mx*y),
+ * so the particles of cell c are cellParticles[cellStart[c] .. cellStart[c+1]). Coordinates and
+ * radii are copied in the same order, so the members of a cell are contiguous in memory.
+ */
+public class CellList {
+    private final int mx;
+    private final int my;
+    private final double cellLenX;
+    private final double cellLenY;
+    private final int[] cellStart;
+    private final int[] cellParticles;
+    private final int[] particleCell;
+    private final double[] sortedX;
+    private final double[] sortedY;
+    private final double[] sortedRadius;
+    private final int maxOccupancy;
+
+    public CellList(ParticleArrays particles, int m, double cellLen) {
+        this(particles, m, m, cellLen, cellLen);
+    }
+
+    public CellList(ParticleArrays particles, int mx, int my, double cellLenX, double cellLenY) {
+        this.mx = mx;
+        this.my = my;
+        this.cellLenX = cellLenX;
+        this.cellLenY = cellLenY;
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] r = particles.getRadius();
+        int n = x.length;
+        int cells = mx * my;
+        this.cellStart = new int[cells + 1];
+        this.cellParticles = new int[n];
+        this.particleCell = new int[n];
+        this.sortedX = new double[n];
+        this.sortedY = new double[n];
+        this.sortedRadius = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            int cell = cellCoord(x[i], cellLenX, mx) + mx * cellCoord(y[i], cellLenY, my);
+            particleCell[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] fill = new int[cells];
+        for (int i = 0; i < n; i++) {
+            int cell = particleCell[i];
+            int slot = cellStart[cell] + fill[cell]++;
+            cellParticles[slot] = i;
+            sortedX[slot] = x[i];
+            sortedY[slot] = y[i];
+            sortedRadius[slot] = r[i];
+        }
+        int max = 0;
+        for (int c = 0; c < cells; c++) {
+            max = Math.max(max, cellStart[c + 1] - cellStart[c]);
+        }
+        this.maxOccupancy = max;
+    }
+
+    // Particles sitting exactly on the upper border (pos == L) belong to the last cell
+    static int cellCoord(double pos, double cellLen, int m) {
+        int coord = (int) Math.floor(pos / cellLen);
+        return Math.max(0, Math.min(m - 1, coord));
+    }
+
+    public int getMx() {
+        return mx;
+    }
+
+    public int getMy() {
+        return my;
+    }
+
+    public double getCellLenX() {
+        return cellLenX;
+    }
+
+    public double getCellLenY() {
+        return cellLenY;
+    }
+
+    public int getCellCount() {
+        return mx * my;
+    }
+
+    public int[] getCellStart() {
+        return cellStart;
+    }
+
+    public int[] getCellParticles() {
+        return cellParticles;
+    }
+
+    public double[] getSortedX() {
+        return sortedX;
+    }
+
+    public double[] getSortedY() {
+        return sortedY;
+    }
+
+    public double[] getSortedRadius() {
+        return sortedRadius;
+    }
+
+    public int getMaxOccupancy() {
+        return maxOccupancy;
+    }
+
+    public int getParticleCell(int particle) {
+        return particleCell[particle];
+    }
+
+    public int getOccupancy(int cell) {
+        return cellStart[cell + 1] - cellStart[cell];
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * Counts neighbors per particle and reports how many particles have each neighbor count.
+ */
+public class DegreeHistogram extends NeighborCounter {
+
+    public DegreeHistogram(int n) {
+        super(n);
+    }
+
+    // histogram[k] is the number of particles with exactly k neighbors
+    public long[] getHistogram() {
+        int maxDegree = 0;
+        for (int count : getCounts()) {
+            maxDegree = Math.max(maxDegree, count);
+        }
+        long[] histogram = new long[maxDegree + 1];
+        for (int count : getCounts()) {
+            histogram[count]++;
+        }
+        return histogram;
+    }
+
+    public double getMeanDegree() {
+        return getCounts().length == 0 ? 0 : 2.0 * getPairCount() / getCounts().length;
+    }
+}
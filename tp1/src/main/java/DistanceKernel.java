@@ -0,0 +1,138 @@
+/**
+ * Pair test on squared distances: i and j are neighbors when |pi - pj|² <= (Rc + (ri + rj))², so no
+ * square root is taken. The minimum image along an axis is d - w * rint(d / L), where L is the side
+ * along that axis and w is L on a periodic axis and 0 on an open one, so no axis needs a branch.
+ * Open and periodic 2D boxes get separate loops so the JIT can vectorize both. Every engine goes
+ * through here (Particle included), so they all accept the same pairs.
+ */
+public final class DistanceKernel {
+    private final double invLx;
+    private final double invLy;
+    private final double invLz;
+    private final double rc;
+    private final double wrapX;
+    private final double wrapY;
+    private final double wrapZ;
+
+    public DistanceKernel(double l, double rc, boolean periodic) {
+        this(l, l, rc, new boolean[]{periodic, periodic});
+    }
+
+    public DistanceKernel(double l, double rc, boolean[] periodic) {
+        this(l, l, rc, periodic);
+    }
+
+    // A 3D box is a cube, so z uses lx
+    public DistanceKernel(double lx, double ly, double rc, boolean[] periodic) {
+        this.invLx = 1 / lx;
+        this.invLy = 1 / ly;
+        this.invLz = 1 / lx;
+        this.rc = rc;
+        this.wrapX = periodic[0] ? lx : 0;
+        this.wrapY = periodic[1] ? ly : 0;
+        this.wrapZ = periodic.length > 2 && periodic[2] ? lx : 0;
+    }
+
+    public DistanceKernel(Domain domain) {
+        this(domain.getL(0), domain.getL(1), domain.getRc(), domain.getDimensions() == 3 ?
+                new boolean[]{domain.isPeriodic(0), domain.isPeriodic(1), domain.isPeriodic(2)} :
+                new boolean[]{domain.isPeriodic(0), domain.isPeriodic(1)});
+    }
+
+    static double minimumImage(double d, double l, double invL) {
+        return d - l * Math.rint(d * invL);
+    }
+
+    public boolean isNeighbor(double xi, double yi, double ri, double xj, double yj, double rj) {
+        double dx = xi - xj;
+        double dy = yi - yj;
+        dx -= wrapX * Math.rint(dx * invLx);
+        dy -= wrapY * Math.rint(dy * invLy);
+        double reach = rc + (ri + rj);
+        return dx * dx + dy * dy <= reach * reach;
+    }
+
+    public boolean isNeighbor(double xi, double yi, double zi, double ri, double xj, double yj, double zj, double rj) {
+        double dx = xi - xj;
+        double dy = yi - yj;
+        double dz = zi - zj;
+        dx -= wrapX * Math.rint(dx * invLx);
+        dy -= wrapY * Math.rint(dy * invLy);
+        dz -= wrapZ * Math.rint(dz * invLz);
+        double reach = rc + (ri + rj);
+        return dx * dx + dy * dy + dz * dz <= reach * reach;
+    }
+
+    // Border-to-border distance |pi - pj| - ri - rj, the value isNeighbor compares against Rc
+    public double distance(double xi, double yi, double ri, double xj, double yj, double rj) {
+        double dx = xi - xj;
+        double dy = yi - yj;
+        dx -= wrapX * Math.rint(dx * invLx);
+        dy -= wrapY * Math.rint(dy * invLy);
+        return Math.sqrt(dx * dx + dy * dy) - ri - rj;
+    }
+
+    public double distance(double xi, double yi, double zi, double ri, double xj, double yj, double zj, double rj) {
+        double dx = xi - xj;
+        double dy = yi - yj;
+        double dz = zi - zj;
+        dx -= wrapX * Math.rint(dx * invLx);
+        dy -= wrapY * Math.rint(dy * invLy);
+        dz -= wrapZ * Math.rint(dz * invLz);
+        return Math.sqrt(dx * dx + dy * dy + dz * dz) - ri - rj;
+    }
+
+    /**
+     * Writes slack[k - from] = |p - p_k|² - (Rc + (r + r_k))² for k in [from, to). Particle k is a
+     * neighbor of (x, y, r) when its slack is <= 0; callers scan the slack afterwards, so this loop
+     * only does arithmetic.
+     */
+    public void slack(double xi, double yi, double ri, double[] x, double[] y, double[] r, int from, int to, double[] slack) {
+        if (wrapX == 0 && wrapY == 0) {
+            openSlack(xi, yi, ri, x, y, r, from, to, slack);
+        } else {
+            periodicSlack(xi, yi, ri, x, y, r, from, to, slack);
+        }
+    }
+
+    private void openSlack(double xi, double yi, double ri, double[] x, double[] y, double[] r, int from, int to, double[] slack) {
+        for (int k = from; k < to; k++) {
+            double dx = xi - x[k];
+            double dy = yi - y[k];
+            double reach = rc + (ri + r[k]);
+            slack[k - from] = dx * dx + dy * dy - reach * reach;
+        }
+    }
+
+    private void periodicSlack(double xi, double yi, double ri, double[] x, double[] y, double[] r, int from, int to, double[] slack) {
+        for (int k = from; k < to; k++) {
+            double dx = xi - x[k];
+            double dy = yi - y[k];
+            dx -= wrapX * Math.rint(dx * invLx);
+            dy -= wrapY * Math.rint(dy * invLy);
+            double reach = rc + (ri + r[k]);
+            slack[k - from] = dx * dx + dy * dy - reach * reach;
+        }
+    }
+
+    /**
+     * 3D version of slack; a single loop serves every mix of periodic and open axes.
+     */
+    public void slack(double xi, double yi, double zi, double ri, double[] x, double[] y, double[] z, double[] r,
+                      int from, int to, double[] slack) {
+        for (int k = from; k < to; k++) {
+            double dx = xi - x[k];
+            double dy = yi - y[k];
+            double dz = zi - z[k];
+            dx -= wrapX * Math.rint(dx * invLx);
+            dy -= wrapY * Math.rint(dy * invLy);
+            dz -= wrapZ * Math.rint(dz * invLz);
+            double reach = rc + (ri + r[k]);
+            slack[k - from] = dx * dx + dy * dy + dz * dz - reach * reach;
+        }
+    }
+
+    public double getRc() {
+        return rc;
+    }
+}
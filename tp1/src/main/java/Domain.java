@@ -0,0 +1,127 @@
+import java.util.Arrays;
+
+/**
+ * Immutable parameters of one neighbor search: grid size and side along each axis, particle count N,
+ * interaction radius Rc and which axes have periodic boundaries (two or three of them, which also sets
+ * the dimension). 2D boxes may be rectangular (Lx x Ly split into Mx x My cells); 3D boxes are cubes.
+ * Engines receive it explicitly, so searches with different parameters can run at the same time in
+ * one JVM.
+ */
+public final class Domain {
+    private final int[] m;
+    private final int n;
+    private final double[] l;
+    private final double rc;
+    private final boolean[] periodic;
+
+    public Domain(int m, int n, double l, double rc, boolean periodic) {
+        this(m, n, l, rc, new boolean[]{periodic, periodic});
+    }
+
+    public Domain(int m, int n, double l, double rc, boolean[] periodic) {
+        this(filled(periodic.length, m), n, filled(periodic.length, l), rc, periodic);
+    }
+
+    public Domain(int mx, int my, int n, double lx, double ly, double rc, boolean[] periodic) {
+        this(new int[]{mx, my}, n, new double[]{lx, ly}, rc, periodic);
+    }
+
+    private Domain(int[] m, int n, double[] l, double rc, boolean[] periodic) {
+        if (periodic.length != 2 && periodic.length != 3) throw new IllegalArgumentException("Only 2D and 3D domains are supported");
+        if (m.length != periodic.length || l.length != periodic.length) throw new IllegalArgumentException("Need one M and one L per axis");
+        for (int axis = 0; axis < m.length; axis++) {
+            if (m[axis] < 1) throw new IllegalArgumentException("M must be at least 1");
+        }
+        if (periodic.length == 3 && !isCube(m, l)) throw new IllegalArgumentException("3D domains must be cubes");
+        this.m = m.clone();
+        this.n = n;
+        this.l = l.clone();
+        this.rc = rc;
+        this.periodic = periodic.clone();
+    }
+
+    private static int[] filled(int length, int value) {
+        int[] values = new int[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    private static double[] filled(int length, double value) {
+        double[] values = new double[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    private static boolean isCube(int[] m, double[] l) {
+        for (int axis = 1; axis < m.length; axis++) {
+            if (m[axis] != m[0] || l[axis] != l[0]) return false;
+        }
+        return true;
+    }
+
+    // Same M and L on every axis
+    public boolean isSquare() {
+        return isCube(m, l);
+    }
+
+    // M along x, the only M of square domains
+    public int getM() {
+        return m[0];
+    }
+
+    public int getM(int axis) {
+        return m[axis];
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    // Side along x, the only side of square domains
+    public double getL() {
+        return l[0];
+    }
+
+    public double getL(int axis) {
+        return l[axis];
+    }
+
+    public double getRc() {
+        return rc;
+    }
+
+    public double getCellLen() {
+        return l[0] / m[0];
+    }
+
+    public double getCellLen(int axis) {
+        return l[axis] / m[axis];
+    }
+
+    public int getDimensions() {
+        return periodic.length;
+    }
+
+    public boolean isPeriodic(int axis) {
+        return periodic[axis];
+    }
+
+    // Periodic along every axis
+    public boolean isPeriodic() {
+        for (boolean axis : periodic) {
+            if (!axis) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Domain{" +
+                "m=" + Arrays.toString(m) +
+                ", n=" + n +
+                ", l=" + Arrays.toString(l) +
+                ", rc=" + rc +
+                ", periodic=" + Arrays.toString(periodic) +
+                '}';
+    }
+}
@@ -0,0 +1,310 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the text static/dynamic files straight from a memory-mapped file with a byte-level number parser.
+ * Numbers go through the exact fast path (at most 18 significant digits and |exponent| <= 22, which is
+ * correctly rounded); anything else falls back to Double.parseDouble, so values match the line-based reader.
+ */
+public class FastInputReader implements AutoCloseable {
+    private static final long WINDOW = 1L << 28;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+    private long position;
+    private final byte[] token = new byte[64];
+    private String frameTime;
+
+    public FastInputReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        map(0);
+    }
+
+    /**
+     * Reads the static file (N, L, one radius per line) and the positions of the first frame of the dynamic file.
+     */
+    public static ParticleInput read(Path staticPath, Path dynamicPath) throws IOException {
+        ParticleInput input = readStatic(staticPath);
+        ParticleArrays particles = input.getParticles();
+        int count;
+        try (FastInputReader reader = new FastInputReader(dynamicPath)) {
+            count = reader.nextFrame(particles.getX(), particles.getY());
+        }
+        return new ParticleInput(input.getN(), input.getL(), input.getLy(), new ParticleArrays(
+                Arrays.copyOf(particles.getX(), count), Arrays.copyOf(particles.getY(), count), Arrays.copyOf(particles.getRadius(), count)));
+    }
+
+    /**
+     * Same as read for 3D inputs, whose dynamic file has an "x y z" line per particle.
+     */
+    public static ParticleInput read3D(Path staticPath, Path dynamicPath) throws IOException {
+        ParticleInput input = readStatic(staticPath);
+        ParticleArrays particles = input.getParticles();
+        double[] z = new double[particles.size()];
+        int count;
+        try (FastInputReader reader = new FastInputReader(dynamicPath)) {
+            count = reader.nextFrame(particles.getX(), particles.getY(), z);
+        }
+        return new ParticleInput(input.getN(), input.getL(), input.getLy(), new ParticleArrays(Arrays.copyOf(particles.getX(), count),
+                Arrays.copyOf(particles.getY(), count), Arrays.copyOf(z, count), Arrays.copyOf(particles.getRadius(), count)));
+    }
+
+    /**
+     * Reads N, L (or "Lx Ly" for a rectangular box) and the radii; positions are left at zero to be filled with nextFrame.
+     */
+    public static ParticleInput readStatic(Path staticPath) throws IOException {
+        try (FastInputReader reader = new FastInputReader(staticPath)) {
+            int n = (int) reader.nextNumberLine();
+            if (!reader.nextLine()) throw new IOException("Unexpected end of file at byte " + reader.position);
+            double l = reader.nextDouble();
+            double ly = reader.hasTokenOnLine() ? reader.nextDouble() : l;
+            reader.skipRestOfLine();
+            double[] radius = new double[Math.max(n, 0)];
+            int count = 0;
+            while (count < n && reader.nextLine()) {
+                radius[count++] = reader.nextDouble();
+                reader.skipRestOfLine();
+            }
+            radius = Arrays.copyOf(radius, count);
+            return new ParticleInput(n, l, ly, new ParticleArrays(new double[count], new double[count], radius));
+        }
+    }
+
+    /**
+     * Reads the next frame of a dynamic file (a time line followed by one "x y" line per particle) into x and y.
+     * Lines with fewer than two values are skipped. Returns how many positions were read, 0 at end of file.
+     */
+    public int nextFrame(double[] x, double[] y) {
+        if (!nextLine()) return 0;
+        frameTime = nextWord();
+        skipRestOfLine();
+        int count = 0;
+        while (count < x.length && nextLine()) {
+            double px = nextDouble();
+            if (!hasTokenOnLine()) {
+                skipRestOfLine();
+                continue;
+            }
+            x[count] = px;
+            y[count] = nextDouble();
+            skipRestOfLine();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 3D version of nextFrame: one "x y z" line per particle, lines with fewer than three values are skipped.
+     */
+    public int nextFrame(double[] x, double[] y, double[] z) {
+        if (!nextLine()) return 0;
+        frameTime = nextWord();
+        skipRestOfLine();
+        int count = 0;
+        while (count < x.length && nextLine()) {
+            double px = nextDouble();
+            if (!hasTokenOnLine()) {
+                skipRestOfLine();
+                continue;
+            }
+            double py = nextDouble();
+            if (!hasTokenOnLine()) {
+                skipRestOfLine();
+                continue;
+            }
+            x[count] = px;
+            y[count] = py;
+            z[count] = nextDouble();
+            skipRestOfLine();
+            count++;
+        }
+        return count;
+    }
+
+    // The time token of the last frame as written in the file, so it can be echoed unchanged
+    public String getFrameTime() {
+        return frameTime;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Skips blank space and empty lines; returns false at end of file.
+     */
+    public boolean nextLine() {
+        int c;
+        while ((c = peek()) != -1 && isSpace(c)) {
+            position++;
+        }
+        return c != -1;
+    }
+
+    public boolean hasTokenOnLine() {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t') {
+            position++;
+        }
+        return c != -1 && c != '\n' && c != '\r';
+    }
+
+    public void skipRestOfLine() {
+        int c;
+        while ((c = peek()) != -1 && c != '\n') {
+            position++;
+        }
+    }
+
+    private String nextWord() {
+        hasTokenOnLine();
+        StringBuilder word = new StringBuilder();
+        int c;
+        while ((c = peek()) != -1 && !isSpace(c)) {
+            word.append((char) c);
+            position++;
+        }
+        return word.toString();
+    }
+
+    private double nextNumberLine() throws IOException {
+        if (!nextLine()) throw new IOException("Unexpected end of file at byte " + position);
+        double value = nextDouble();
+        skipRestOfLine();
+        return value;
+    }
+
+    public double nextDouble() {
+        hasTokenOnLine();
+        int length = 0;
+        boolean negative = false;
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean seenDigit = false;
+
+        int c = peek();
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            length = keep(c, length);
+            c = peek();
+        }
+        while (c >= '0' && c <= '9') {
+            seenDigit = true;
+            if (mantissa == 0 && c == '0') {
+                // leading zeros are not significant
+            } else if (digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+            } else {
+                exponent++;
+                exact &= c == '0';
+            }
+            length = keep(c, length);
+            c = peek();
+        }
+        if (c == '.') {
+            length = keep(c, length);
+            c = peek();
+            while (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (mantissa == 0 && c == '0') {
+                    exponent--;
+                } else if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    exponent--;
+                } else {
+                    exact &= c == '0';
+                }
+                length = keep(c, length);
+                c = peek();
+            }
+        }
+        if (seenDigit && (c == 'e' || c == 'E')) {
+            length = keep(c, length);
+            c = peek();
+            boolean negativeExp = false;
+            if (c == '-' || c == '+') {
+                negativeExp = c == '-';
+                length = keep(c, length);
+                c = peek();
+            }
+            int exp = 0;
+            while (c >= '0' && c <= '9') {
+                exp = Math.min(exp * 10 + (c - '0'), 100000);
+                length = keep(c, length);
+                c = peek();
+            }
+            exponent += negativeExp ? -exp : exp;
+        }
+        if (!seenDigit || (c != -1 && !isSpace(c))) {
+            // NaN, Infinity, hex or malformed: let the JDK decide
+            while (c != -1 && !isSpace(c)) {
+                length = keep(c, length);
+                c = peek();
+            }
+            return fallback(length);
+        }
+        if (exact && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        return fallback(length);
+    }
+
+    private double fallback(int length) {
+        if (length >= token.length) {
+            throw new NumberFormatException("Number too long at byte " + position);
+        }
+        return Double.parseDouble(new String(token, 0, length, StandardCharsets.US_ASCII));
+    }
+
+    // Consumes c and stores it in the token buffer for the fallback path
+    private int keep(int c, int length) {
+        if (length < token.length) token[length] = (byte) c;
+        position++;
+        return length + 1;
+    }
+
+    private int peek() {
+        if (position >= size) return -1;
+        if (position >= windowEnd) {
+            map(position);
+        }
+        return window.get((int) (position - windowStart)) & 0xFF;
+    }
+
+    private void map(long start) {
+        try {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+            windowEnd = start + window.limit();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Picks the grid size M for the Cell Index Method from N, L, Rc and the largest particle radius.
+ * <p>
+ * Cost model, in units of one pair check: visiting a cell and its half-shell costs CELL_VISIT_COST,
+ * and with a uniform density of k = N/M^2 particles per cell the engine checks k(k-1)/2 pairs inside
+ * each cell plus k^2 pairs per half-shell neighbour cell.
+ */
+public class GridSizer {
+    static final double CELL_VISIT_COST = 2.0;
+    // Keeps M*M + 1 inside an int array
+    static final int MAX_M = 46340;
+    // Keeps M*M*M + 1 inside an int array
+    static final int MAX_M_3D = 1290;
+
+    private GridSizer() {}
+
+    /**
+     * Largest M whose cells are at least Rc + 2*rmax wide, so the half-shell stencil sees every neighbor.
+     */
+    public static int maxValidM(double l, double rc, double maxRadius) {
+        double reach = rc + 2 * maxRadius;
+        if (reach <= 0) return MAX_M;
+        return (int) Math.max(1, Math.min(MAX_M, Math.floor(l / reach)));
+    }
+
+    public static double expectedPairChecks(int n, int m, boolean periodic) {
+        return expectedPairChecks(n, m, m, periodic, periodic);
+    }
+
+    public static double expectedPairChecks(int n, int mx, int my, boolean periodicX, boolean periodicY) {
+        double cells = (double) mx * my;
+        double perCell = n / cells;
+        return cells * perCell * (perCell - 1) / 2 + neighbourCellPairs(mx, my, periodicX, periodicY) * perCell * perCell;
+    }
+
+    public static double expectedCost(int n, int m, boolean periodic) {
+        return expectedCost(n, m, m, periodic, periodic);
+    }
+
+    public static double expectedCost(int n, int mx, int my, boolean periodicX, boolean periodicY) {
+        return CELL_VISIT_COST * mx * my + expectedPairChecks(n, mx, my, periodicX, periodicY);
+    }
+
+    /**
+     * M in [1, maxValidM] with the lowest expected cost.
+     */
+    public static int optimalM(int n, double l, double rc, double maxRadius, boolean periodic) {
+        int maxM = maxValidM(l, rc, maxRadius);
+        int best = 1;
+        double bestCost = expectedCost(n, 1, periodic);
+        for (int m = 2; m <= maxM; m++) {
+            double cost = expectedCost(n, m, periodic);
+            if (cost < bestCost) {
+                best = m;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 3D counterpart of optimalM for CellIndexMethod3D: k = N/M^3 particles per cell and a 13-cell
+     * half-shell, ignoring the missing neighbours on open faces.
+     */
+    public static int optimalM3D(int n, double l, double rc, double maxRadius) {
+        int maxM = Math.min(MAX_M_3D, maxValidM(l, rc, maxRadius));
+        int best = 1;
+        double bestCost = Double.MAX_VALUE;
+        for (int m = 1; m <= maxM; m++) {
+            double cells = (double) m * m * m;
+            double perCell = n / cells;
+            double cost = CELL_VISIT_COST * cells + cells * (perCell * (perCell - 1) / 2 + 13 * perCell * perCell);
+            if (cost < bestCost) {
+                best = m;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * {Mx, My} for an Lx x Ly box: cells are kept as square as the valid ranges allow, and the grid
+     * with the lowest expected cost along that diagonal is picked.
+     */
+    public static int[] optimalGrid(int n, double lx, double ly, double rc, double maxRadius, boolean periodicX, boolean periodicY) {
+        int maxMx = maxValidM(lx, rc, maxRadius);
+        int maxMy = maxValidM(ly, rc, maxRadius);
+        double longest = Math.max(lx, ly);
+        int[] best = {1, 1};
+        double bestCost = expectedCost(n, 1, 1, periodicX, periodicY);
+        for (int k = 2; k <= Math.max(maxMx, maxMy); k++) {
+            int mx = (int) Math.max(1, Math.min(maxMx, Math.round(k * lx / longest)));
+            int my = (int) Math.max(1, Math.min(maxMy, Math.round(k * ly / longest)));
+            if ((long) mx * my > Integer.MAX_VALUE - 1) break;
+            double cost = expectedCost(n, mx, my, periodicX, periodicY);
+            if (cost < bestCost) {
+                best = new int[]{mx, my};
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Number of (cell, half-shell cell) pairs the engine visits: half of the ordered pairs of distinct
+     * adjacent cells. Along an axis a cell sees min(3, M) distinct columns when it is periodic and
+     * 3M - 2 in total over the M columns when it is open.
+     */
+    private static double neighbourCellPairs(int mx, int my, boolean periodicX, boolean periodicY) {
+        double seenX = periodicX ? (double) mx * Math.min(3, mx) : 3.0 * mx - 2;
+        double seenY = periodicY ? (double) my * Math.min(3, my) : 3.0 * my - 2;
+        return (seenX * seenY - (double) mx * my) / 2;
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Arrays;
+
+/**
+ * Cell Index Method for a sequence of frames. Cells are doubly linked lists (head/next/prev) kept
+ * across frames, and on each update only the particles whose cell changed are unlinked and relinked.
+ */
+public class IncrementalCellIndexMethod {
+    private static final int NONE = -1;
+
+    private final int m;
+    private final double cellLen;
+    private final CellIndexMethod cim;
+    private final int[] head;
+    private final int[] next;
+    private final int[] prev;
+    private final int[] cellOf;
+    private final int[] neighbourCells;
+    private final PairBuffer pairs;
+    private boolean built;
+    private int movedParticles;
+    private long candidatePairs;
+
+    public IncrementalCellIndexMethod(int n, int m, double l, double rc, boolean periodic) {
+        this.m = m;
+        this.cellLen = l / m;
+        this.cim = new CellIndexMethod(m, l, rc, periodic);
+        this.head = new int[m * m];
+        this.next = new int[n];
+        this.prev = new int[n];
+        this.cellOf = new int[n];
+        this.neighbourCells = new int[cim.halfShellCapacity()];
+        this.pairs = new PairBuffer(n);
+        Arrays.fill(head, NONE);
+    }
+
+    /**
+     * Moves the particles that crossed a cell boundary since the last update (all of them the first time).
+     */
+    public void update(ParticleArrays particles) {
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        movedParticles = 0;
+        for (int i = 0; i < particles.size(); i++) {
+            int cell = CellList.cellCoord(x[i], cellLen, m) + m * CellList.cellCoord(y[i], cellLen, m);
+            if (built && cell == cellOf[i]) continue;
+            if (built) unlink(i);
+            link(i, cell);
+            movedParticles++;
+        }
+        built = true;
+    }
+
+    public NeighborList findNeighbors(ParticleArrays particles) {
+        update(particles);
+        pairs.clear();
+        candidatePairs = 0;
+        for (int cy = 0; cy < m; cy++) {
+            for (int cx = 0; cx < m; cx++) {
+                int cell = cx + m * cy;
+                if (head[cell] == NONE) continue;
+                for (int i = head[cell]; i != NONE; i = next[i]) {
+                    for (int j = next[i]; j != NONE; j = next[j]) {
+                        check(particles, i, j);
+                    }
+                }
+                int count = cim.halfShell(cx, cy, neighbourCells);
+                for (int k = 0; k < count; k++) {
+                    int other = head[neighbourCells[k]];
+                    if (other == NONE) continue;
+                    for (int i = head[cell]; i != NONE; i = next[i]) {
+                        for (int j = other; j != NONE; j = next[j]) {
+                            check(particles, i, j);
+                        }
+                    }
+                }
+            }
+        }
+        return NeighborList.fromPairs(particles.size(), pairs);
+    }
+
+    private void check(ParticleArrays particles, int i, int j) {
+        candidatePairs++;
+        if (cim.isNeighbor(particles, i, j)) pairs.add(i, j);
+    }
+
+    private void link(int i, int cell) {
+        cellOf[i] = cell;
+        prev[i] = NONE;
+        next[i] = head[cell];
+        if (head[cell] != NONE) prev[head[cell]] = i;
+        head[cell] = i;
+    }
+
+    private void unlink(int i) {
+        if (prev[i] != NONE) {
+            next[prev[i]] = next[i];
+        } else {
+            head[cellOf[i]] = next[i];
+        }
+        if (next[i] != NONE) prev[next[i]] = prev[i];
+    }
+
+    public int getMovedParticles() {
+        return movedParticles;
+    }
+
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+}
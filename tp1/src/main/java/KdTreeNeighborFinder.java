@@ -0,0 +1,209 @@
+import java.util.Arrays;
+
+/**
+ * 2D k-d tree engine for clustered inputs, where a uniform grid leaves most cells empty and a few
+ * cells crowded. Nodes split their particles at the median of the wider side of their bounding box
+ * until at most LEAF_SIZE remain, and coordinates are copied in tree order so every leaf is a
+ * contiguous range for DistanceKernel.slack. Each leaf queries the tree with Rc + 2 * rmax, skipping
+ * nodes whose box is farther than that from its own box (across periodic borders too) and nodes that
+ * end before it, so every pair of leaves, and every pair of particles, is tested once.
+ */
+public class KdTreeNeighborFinder implements NeighborFinder {
+    static final int LEAF_SIZE = 32;
+    // Widens the pruning reach so rounding in the box distance can never drop a pair the kernel accepts
+    private static final double REACH_MARGIN = 1 + 1e-9;
+
+    private final double lx;
+    private final double ly;
+    private final double rc;
+    private final boolean periodicX;
+    private final boolean periodicY;
+    private final DistanceKernel kernel;
+    private long candidatePairs;
+    private SearchStats stats;
+
+    // Tree of the last search: node k covers slots [nodeFrom[k], nodeTo[k]) and its box
+    private int[] order;
+    private double[] treeX;
+    private double[] treeY;
+    private double[] treeRadius;
+    private int[] nodeFrom;
+    private int[] nodeTo;
+    private int[] leftChild;
+    private double[] minX;
+    private double[] maxX;
+    private double[] minY;
+    private double[] maxY;
+    private int nodeCount;
+
+    public KdTreeNeighborFinder(Domain domain) {
+        if (domain.getDimensions() != 2) throw new IllegalArgumentException("KdTreeNeighborFinder needs a 2D domain");
+        this.lx = domain.getL(0);
+        this.ly = domain.getL(1);
+        this.rc = domain.getRc();
+        this.periodicX = domain.isPeriodic(0);
+        this.periodicY = domain.isPeriodic(1);
+        this.kernel = new DistanceKernel(domain);
+    }
+
+    @Override
+    public NeighborList findNeighbors(ParticleArrays particles) {
+        int n = particles.size();
+        if (stats != null) stats.enter("binning");
+        build(particles);
+        if (stats != null) stats.begin("search");
+
+        PairBuffer pairs = new PairBuffer(n);
+        double[] slack = new double[LEAF_SIZE];
+        int[] stack = new int[64];
+        double reach = (rc + 2 * particles.getMaxRadius()) * REACH_MARGIN;
+        double reachSquared = reach * reach;
+        long candidates = 0;
+        for (int leaf = 0; leaf < nodeCount; leaf++) {
+            if (leftChild[leaf] >= 0) continue;
+            int start = nodeFrom[leaf];
+            int end = nodeTo[leaf];
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (nodeTo[node] <= start) continue;
+                double gx = gap(minX[leaf], maxX[leaf], minX[node], maxX[node], periodicX, lx);
+                double gy = gap(minY[leaf], maxY[leaf], minY[node], maxY[node], periodicY, ly);
+                if (gx * gx + gy * gy > reachSquared) continue;
+                int left = leftChild[node];
+                if (left >= 0) {
+                    if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                    stack[top++] = left + 1;
+                    stack[top++] = left;
+                    continue;
+                }
+                for (int a = start; a < end; a++) {
+                    // Slots never repeat across leaves, so within the own leaf only later slots are paired
+                    int from = node == leaf ? a + 1 : nodeFrom[node];
+                    int to = nodeTo[node];
+                    kernel.slack(treeX[a], treeY[a], treeRadius[a], treeX, treeY, treeRadius, from, to, slack);
+                    int i = order[a];
+                    for (int b = from; b < to; b++) {
+                        if (slack[b - from] <= 0) pairs.add(i, order[b]);
+                    }
+                    candidates += to - from;
+                }
+            }
+        }
+        candidatePairs = candidates;
+        if (stats != null) stats.begin("lists");
+        NeighborList neighbors = NeighborList.fromPairs(n, pairs);
+        if (stats != null) stats.exit();
+        return neighbors;
+    }
+
+    // Gap along one axis between [minA, maxA] and [minB, maxB], through the nearest periodic image if the axis wraps
+    private static double gap(double minA, double maxA, double minB, double maxB, boolean periodic, double l) {
+        double d = Math.max(0, Math.max(minB - maxA, minA - maxB));
+        if (periodic && d > 0) {
+            d = Math.min(d, Math.max(0, Math.max(minB - (maxA + l), (minA + l) - maxB)));
+            d = Math.min(d, Math.max(0, Math.max(minB - (maxA - l), (minA - l) - maxB)));
+        }
+        return d;
+    }
+
+    private void build(ParticleArrays particles) {
+        int n = particles.size();
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] r = particles.getRadius();
+        order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        // Leaves hold at least LEAF_SIZE / 2 particles, so there are fewer than 2n / (LEAF_SIZE / 2) + 1 nodes
+        int capacity = 2 * (n / (LEAF_SIZE / 2) + 1);
+        nodeFrom = new int[capacity];
+        nodeTo = new int[capacity];
+        leftChild = new int[capacity];
+        minX = new double[capacity];
+        maxX = new double[capacity];
+        minY = new double[capacity];
+        maxY = new double[capacity];
+        nodeCount = 1;
+        buildNode(0, 0, n, x, y);
+
+        treeX = new double[n];
+        treeY = new double[n];
+        treeRadius = new double[n];
+        for (int a = 0; a < n; a++) {
+            treeX[a] = x[order[a]];
+            treeY[a] = y[order[a]];
+            treeRadius[a] = r[order[a]];
+        }
+    }
+
+    private void buildNode(int node, int from, int to, double[] x, double[] y) {
+        double loX = Double.POSITIVE_INFINITY, hiX = Double.NEGATIVE_INFINITY;
+        double loY = Double.POSITIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY;
+        for (int a = from; a < to; a++) {
+            int i = order[a];
+            loX = Math.min(loX, x[i]);
+            hiX = Math.max(hiX, x[i]);
+            loY = Math.min(loY, y[i]);
+            hiY = Math.max(hiY, y[i]);
+        }
+        nodeFrom[node] = from;
+        nodeTo[node] = to;
+        minX[node] = loX;
+        maxX[node] = hiX;
+        minY[node] = loY;
+        maxY[node] = hiY;
+        if (to - from <= LEAF_SIZE) {
+            leftChild[node] = -1;
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        select(hiX - loX >= hiY - loY ? x : y, from, to - 1, mid);
+        int left = nodeCount;
+        nodeCount += 2;
+        leftChild[node] = left;
+        buildNode(left, from, mid, x, y);
+        buildNode(left + 1, mid, to, x, y);
+    }
+
+    // Quickselect on order[lo..hi] so that order[k] has the k-th smallest key and smaller keys come before it
+    private void select(double[] key, int lo, int hi, int k) {
+        while (hi > lo) {
+            double pivot = key[order[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (key[order[i]] < pivot) i++;
+                while (key[order[j]] > pivot) j--;
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+}
@@ -1,71 +1,46 @@
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.InvalidParameterException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
+    // Sum of squared cell occupancies over its value for the same particles spread uniformly; above this the grid is considered clustered
+    static final double CLUSTER_RATIO = 4.0;
+    // Fixed, so a sampled validation checks the same particles on every run
+    static final long SAMPLE_SEED = 20250510L;
 
-    static int getNextPosition(int coord) {
-        return Constants.getBoundaryCond() ? (coord + 1) % Constants.getM() : coord + 1;
+    static int getNextPosition(int coord, int axis, Domain domain) {
+        return domain.isPeriodic(axis) ? (coord + 1) % domain.getM(axis) : coord + 1;
     }
 
-    static int getPrevPosition(int coord) {
-        return Constants.getBoundaryCond() ? (coord - 1 + Constants.getM()) % Constants.getM() : coord - 1;
+    static int getPrevPosition(int coord, int axis, Domain domain) {
+        return domain.isPeriodic(axis) ? (coord - 1 + domain.getM(axis)) % domain.getM(axis) : coord - 1;
     }
 
-    static Cell getParticleCell(Particle particle) {
-        int cellX = (int)Math.floor(particle.getX() / Constants.getCellLen());
-        int cellY = (int)Math.floor(particle.getY() / Constants.getCellLen());
-        return new Cell(cellX, cellY);
+    static Cell getParticleCell(Particle particle, Domain domain) {
+        int cellX = (int)Math.floor(particle.getX() / domain.getCellLen(0));
+        int cellY = (int)Math.floor(particle.getY() / domain.getCellLen(1));
+        int cellZ = domain.getDimensions() == 3 ? (int)Math.floor(particle.getZ() / domain.getCellLen(2)) : 0;
+        return new Cell(cellX, cellY, cellZ, domain.getM());
     }
 
-    static Map<Integer, Set<Integer>> findNeighborsBruteForce(List<Particle> particles) {
-        long startTime = System.currentTimeMillis();
-
+    static Map<Integer, Set<Integer>> findNeighborsCIM(List<Particle> particles, Map<Cell, List<Particle>> particlesByCell, Domain domain) {
         Map<Integer, Set<Integer>> nearParticles = new HashMap<>();
         particles.forEach(p -> nearParticles.put(p.getId(), new HashSet<>()));
-        double rc = Constants.getRc();
-
-        for (int i = 0; i < particles.size(); i++) {
-            Particle particle1 = particles.get(i);
-            for (int j = 0; j < particles.size(); j++) {
-                if (i == j) continue; // Skip same particle
-
-                Particle particle2 = particles.get(j);
-
-                if(particle1.distanceTo(particle2) - particle1.getRadius() - particle2.getRadius() <= rc) {
-                    nearParticles.get(particle1.getId()).add(particle2.getId());
-                }
-            }
-        }
-
-        long endTime = System.currentTimeMillis();
-        System.out.println("Brute force execution time: " + (endTime - startTime) + " ms");
-
-        return nearParticles;
-    }
-
-    static Map<Integer, Set<Integer>> findNeighborsCIM(List<Particle> particles, Map<Cell, List<Particle>> particlesByCell) {
-        long startTime = System.currentTimeMillis();
-
-        Map<Integer, Set<Integer>> nearParticles = new HashMap<>();
-        particles.forEach(p -> nearParticles.put(p.getId(), new HashSet<>()));
-        double rc = Constants.getRc();
+        DistanceKernel kernel = new DistanceKernel(domain);
 
         particles.forEach(particle -> {
-            Cell cell = getParticleCell(particle);
-            List<Cell> neighbourCells = getNeighbourCells(cell);
+            Cell cell = getParticleCell(particle, domain);
+            List<Cell> neighbourCells = getNeighbourCells(cell, domain);
             neighbourCells.add(cell);
             neighbourCells.forEach(n -> {
                 List<Particle> nearParticlesList = particlesByCell.getOrDefault(n, new ArrayList<>());
 
                 for (Particle neighbor : nearParticlesList) {
-                    if (particle.getId() != neighbor.getId() &&
-                            particle.distanceTo(neighbor) - particle.getRadius() - neighbor.getRadius() <= rc) {
+                    if (particle.getId() != neighbor.getId() && particle.isNeighbor(neighbor, kernel)) {
                         nearParticles.get(particle.getId()).add(neighbor.getId());
                         nearParticles.get(neighbor.getId()).add(particle.getId());
                     }
@@ -73,111 +48,371 @@ public class Main {
             });
         });
 
+        return nearParticles;
+    }
+
+    // Tiled j > i brute force on a pool of the given size; the reference the engines are checked against
+    static NeighborList findNeighborsBruteForce(ParticleArrays particles, Domain domain, int threads) {
+        long startTime = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        NeighborList neighbors;
+        try {
+            neighbors = new BruteForceNeighborFinder(domain, pool).findNeighbors(particles);
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("Brute force execution time (" + threads + " threads): " + (System.currentTimeMillis() - startTime) + " ms");
+        return neighbors;
+    }
+
+    static NeighborList findNeighborsCIMArrays(List<Particle> particles, Domain domain, String mode, int threads, SearchStats stats) {
+        if (stats != null) stats.begin("arrays");
+        ParticleArrays arrays = ParticleArrays.fromParticles(particles, domain.getDimensions());
+        long startTime = System.currentTimeMillis();
+
+        ForkJoinPool pool = mode.equals("parallel") ? new ForkJoinPool(threads) : null;
+        NeighborFinder finder = switch (domain.getDimensions() == 3 ? "3d" : mode) {
+            case "parallel" -> new ParallelCellIndexMethod(domain, pool);
+            case "polydisperse" -> new MultiLevelCellIndexMethod(domain);
+            case "kdtree" -> new KdTreeNeighborFinder(domain);
+            case "3d" -> new CellIndexMethod3D(domain);
+            default -> new CellIndexMethod(domain);
+        };
+        finder.setStats(stats);
+        NeighborList neighbors;
+        try {
+            neighbors = finder.findNeighbors(arrays);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        if (stats != null) stats.recordPairs(finder.getCandidatePairs(), neighbors.getPairCount());
+        if (finder instanceof MultiLevelCellIndexMethod multiLevel) {
+            System.out.println("Radius levels: " + multiLevel.getLevelCount());
+        }
+        if (finder instanceof KdTreeNeighborFinder tree) {
+            System.out.println("k-d tree nodes: " + tree.getNodeCount());
+            if (stats != null) stats.put("kdtree_nodes", tree.getNodeCount());
+        }
+
         long endTime = System.currentTimeMillis();
-        System.out.println("Cell Index Method execution time: " + (endTime - startTime) + " ms");
+        String engine = finder instanceof KdTreeNeighborFinder ? "k-d tree" : "Cell Index Method (" + mode + ")";
+        System.out.println(engine + " execution time: " + (endTime - startTime) + " ms, pair checks: " + finder.getCandidatePairs());
 
-        return nearParticles;
+        return neighbors;
     }
 
-    static void writeResultsToFile(String fileName, Map<Integer, Set<Integer>> results) {
-        try (FileWriter fileWriter = new FileWriter(fileName)) {
-            results.forEach((key, value) -> {
-                try {
-                    fileWriter.write(String.format("%d: %s\n", key, value.stream()
-                            .map(String::valueOf)
-                            .collect(Collectors.joining(", "))));
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
+    /**
+     * Picks the engine from the occupancy of the cells in particlesByCell. The CIM checks about sum(n_c^2)
+     * pairs, which is N^2 / cells when particles are spread uniformly; when it is CLUSTER_RATIO times
+     * larger a few crowded cells dominate and the k-d tree is used.
+     */
+    static String chooseEngine(Map<Cell, List<Particle>> particlesByCell, Domain domain) {
+        long cells = (long) domain.getM(0) * domain.getM(1);
+        int n = domain.getN();
+        double sumSquares = 0;
+        int maxOccupancy = 0;
+        for (List<Particle> cell : particlesByCell.values()) {
+            sumSquares += (double) cell.size() * cell.size();
+            maxOccupancy = Math.max(maxOccupancy, cell.size());
+        }
+        // Expected sum of squares for Poisson occupancies with mean N / cells
+        double mean = (double) n / cells;
+        double uniform = cells * (mean * mean + mean);
+        double ratio = sumSquares / uniform;
+        String engine = ratio > CLUSTER_RATIO ? "kdtree" : "sequential";
+        System.out.printf("Occupancy: %d of %d cells used (%.1f%%), mean %.2f, max %d, clustering %.2f -> %s%n",
+                particlesByCell.size(), cells, 100.0 * particlesByCell.size() / cells, mean, maxOccupancy, ratio, engine);
+        return engine;
+    }
+
+    static void writeResultsToFile(String fileName, NeighborList results, String format) {
+        try {
+            if (!format.equals("binary")) {
+                NeighborListWriter.writeText(Path.of(fileName + ".txt"), results);
+            }
+            if (!format.equals("text")) {
+                NeighborListWriter.writeBinary(Path.of(fileName + ".bin"), results);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing to file: " + e.getMessage());
+        }
+    }
+
+    // Streams the pairs from the search straight into the file, so the neighbor lists are never built
+    static void writePairsToFile(String fileName, ParticleArrays particles, Domain domain) {
+        DegreeHistogram histogram = new DegreeHistogram(particles.size());
+        try (PairFileWriter writer = new PairFileWriter(Path.of(fileName + ".txt"))) {
+            PairConsumer consumer = writer.andThen(histogram);
+            long pairs = domain.getDimensions() == 3 ? new CellIndexMethod3D(domain).forEachPair(particles, consumer)
+                    : new CellIndexMethod(domain).forEachPair(particles, consumer);
+            System.out.printf("Pairs streamed: %d, mean neighbors %.2f, neighbor count histogram %s%n",
+                    pairs, histogram.getMeanDegree(), Arrays.toString(histogram.getHistogram()));
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Error writing to file: " + e.getMessage());
+        }
+    }
+
+    // Coordinates and neighbor lists in a memory-mapped file (see MappedNeighborStore), kept off the heap
+    static void writeStoreToFile(String fileName, ParticleArrays particles, Domain domain) {
+        long startTime = System.currentTimeMillis();
+        try (MappedNeighborStore store = MappedNeighborStore.create(Path.of(fileName + ".store"), particles, domain)) {
+            System.out.println("Neighbor store with " + store.getPairCount() + " pairs written in " + (System.currentTimeMillis() - startTime) + " ms");
+        } catch (IOException e) {
+            System.out.println("Error writing to file: " + e.getMessage());
+        }
+    }
+
+    static void writeStats(SearchStats stats, String fileName) {
+        if (stats == null) return;
+        try {
+            stats.writeJson(Path.of(fileName));
+            System.out.println("Stats written to " + fileName);
         } catch (IOException e) {
             System.out.println("Error writing to file: " + e.getMessage());
         }
     }
 
-    static List<Cell> getNeighbourCells(Cell cell) {
-        return new ArrayList<>(List.of(new Cell(cell.getX(), getPrevPosition(cell.getY())), new Cell(getNextPosition(cell.getX()), getPrevPosition(cell.getY())), new Cell(getNextPosition(cell.getX()), cell.getY()), new Cell(getNextPosition(cell.getX()), getNextPosition(cell.getY()))));
+    static List<Cell> getNeighbourCells(Cell cell, Domain domain) {
+        if (domain.getDimensions() == 3) return getNeighbourCells3D(cell, domain);
+        int m = domain.getM();
+        return new ArrayList<>(List.of(new Cell(cell.getX(), getPrevPosition(cell.getY(), 1, domain), m), new Cell(getNextPosition(cell.getX(), 0, domain), getPrevPosition(cell.getY(), 1, domain), m), new Cell(getNextPosition(cell.getX(), 0, domain), cell.getY(), m), new Cell(getNextPosition(cell.getX(), 0, domain), getNextPosition(cell.getY(), 1, domain), m)));
+    }
+
+    // The 2D half-shell in the cell's own layer plus the 9 cells of the layer above: 13 cells
+    static List<Cell> getNeighbourCells3D(Cell cell, Domain domain) {
+        int m = domain.getM();
+        int[] xs = {getPrevPosition(cell.getX(), 0, domain), cell.getX(), getNextPosition(cell.getX(), 0, domain)};
+        int[] ys = {getPrevPosition(cell.getY(), 1, domain), cell.getY(), getNextPosition(cell.getY(), 1, domain)};
+        int z = cell.getZ();
+        int up = getNextPosition(z, 2, domain);
+        List<Cell> cells = new ArrayList<>(List.of(new Cell(xs[1], ys[0], z, m), new Cell(xs[2], ys[0], z, m), new Cell(xs[2], ys[1], z, m), new Cell(xs[2], ys[2], z, m)));
+        for (int y : ys) {
+            for (int x : xs) {
+                cells.add(new Cell(x, y, up, m));
+            }
+        }
+        return cells;
+    }
+
+    // "true" or "false" applies to every axis, otherwise one value per axis separated by commas
+    static boolean[] parsePeriodic(String value, int dimensions) {
+        String[] values = value.split(",");
+        if (values.length != 1 && values.length != dimensions) {
+            throw new InvalidParameterException("Expected 1 or " + dimensions + " periodic flags, got " + values.length);
+        }
+        boolean[] periodic = new boolean[dimensions];
+        for (int axis = 0; axis < dimensions; axis++) {
+            periodic[axis] = Boolean.parseBoolean(values[values.length == 1 ? 0 : axis]);
+        }
+        return periodic;
     }
 
     public static void main(String[] args) {
 
-        //Command line arguments: static_file_path, dynamic_file_path, m, rc, boolean indicating if using condicion de contorno o no
+        //Command line arguments: static_file_path (or a .bin file from BinaryParticleFile), dynamic_file_path, m (or auto), rc, boolean indicating if using condicion de contorno o no
+        //(or one boolean per axis separated by commas, e.g. true,true,false, in 3d mode),
+        //optional cim mode (sequential | parallel | polydisperse | frames | verlet | 3d | kdtree | auto, which picks sequential
+        //or kdtree from the cell occupancy), optional mode parameter
+        //(thread count for parallel, skin for verlet; verlet picks its own M for Rc + skin)
+        //, optional output format (text | binary | both | pairs, which streams "id1 id2 distance" lines without building the lists
+        //| store, a memory-mapped file with coordinates and lists; both fill the file from a single search, with no ordering or validation) and optional particle order (file | morton | hilbert), which renumbers
+        //particles along that curve over the cells before the search; ids and output stay those of the input files
+        //, optional validation (full, none, or the number of random particles whose lists are checked against a single-particle scan)
+        //, optional stats file (none, or a path where a JSON summary of phase times, allocations, cell occupancy and pair checks is written)
+        //and optional benchmark reports (true to rerun the search for the parallel speedup over 1..threads and, on rectangular boxes, against
+        //the padded square grid; off by default since they repeat the search many times)
 
         String staticFile = args[0];
         String dynamicFile = args[1];
+        String mode = args.length > 5 ? args[5].toLowerCase() : "sequential";
+        boolean parallel = mode.equals("parallel");
+        int threads = args.length > 6 && parallel ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+        String outputFormat = args.length > 7 ? args[7].toLowerCase() : "text";
+        String order = args.length > 8 ? args[8].toLowerCase() : "file";
+        String validation = args.length > 9 ? args[9].toLowerCase() : "full";
+        String statsFile = args.length > 10 && !args[10].equalsIgnoreCase("none") ? args[10] : null;
+        boolean benchmarkReports = args.length > 11 && Boolean.parseBoolean(args[11]);
+        SearchStats stats = statsFile == null ? null : new SearchStats();
         List<Particle> particles;
-        AtomicInteger counter = new AtomicInteger(1);
         Map<Cell, List<Particle>> particlesByCell = new HashMap<>();
-        List<Double> particleRadii = new ArrayList<>();
 
-        Path staticPath = Path.of(staticFile);
+        ParticleInput input;
         try {
-            List<String> lines = Files.lines(staticPath).toList();
-            int n = Integer.parseInt(lines.get(0));
-            double l = Double.parseDouble(lines.get(1));
-            int m = Integer.parseInt(args[2]);
-            double rc = Double.parseDouble(args[3]);
-            Constants.initialize(m, n, l, rc, Boolean.parseBoolean(args[4]));
-
-            if (l/m < rc) throw new InvalidParameterException("L/M must be lower than Rc");
-
-            // Read particle radius from the static file
-            for (int i = 2; i < Math.min(n + 2, lines.size()); i++) {
-                String line = lines.get(i);
-                String[] parts = line.trim().split("\\s+");
-                double radius = Double.parseDouble(parts[0]);
-                particleRadii.add(radius);
+            if (stats != null) stats.begin("input");
+            long startTime = System.nanoTime();
+            long bytes;
+            if (staticFile.endsWith(".bin")) {
+                // A binary file (see BinaryParticleFile) replaces both inputs, the dynamic path is ignored
+                input = BinaryParticleFile.read(Path.of(staticFile));
+                bytes = Files.size(Path.of(staticFile));
+            } else if (mode.equals("3d")) {
+                // 3D dynamic files have an "x y z" line per particle
+                input = FastInputReader.read3D(Path.of(staticFile), Path.of(dynamicFile));
+                bytes = Files.size(Path.of(staticFile)) + Files.size(Path.of(dynamicFile));
+            } else {
+                input = FastInputReader.read(Path.of(staticFile), Path.of(dynamicFile));
+                bytes = Files.size(Path.of(staticFile)) + Files.size(Path.of(dynamicFile));
             }
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.printf("Input parsed: %.2f MB in %.1f ms (%.1f MB/s)%n", bytes / 1e6, seconds * 1e3, bytes / 1e6 / seconds);
         } catch (IOException e) {
             System.out.println("Error: " + e.getMessage());
             return;
         }
 
-        Path dynamicPath = Path.of(dynamicFile);
-        try {
-            particles = Files.lines(dynamicPath)
-                    .skip(1)
-                    .filter(line -> !line.trim().isEmpty()) // Skip empty lines
-                    .map(line -> line.trim().split("\\s+"))
-                    .filter(parts -> parts.length >= 2) // Ensure we have enough parts
-                    .map(parts -> new Particle(
-                            Double.parseDouble(parts[0]),
-                            Double.parseDouble(parts[1]),
-                            counter.getAndIncrement(),
-                            particleRadii.get(counter.get() - 2)
-                    ))
-                    .toList();
-        } catch (IOException e) {
-            System.out.println("Error reading dynamic file: " + e.getMessage());
-            return;
+        int n = input.getN();
+        double l = input.getL();
+        double ly = input.getLy();
+        double rc = Double.parseDouble(args[3]);
+        int dimensions = input.getParticles().getDimensions();
+        boolean[] periodicAxes = parsePeriodic(args[4], dimensions);
+        boolean boundaryCond = periodicAxes[0];
+        double maxRadius = input.getParticles().getMaxRadius();
+
+        int mx;
+        int my;
+        if (args[2].equalsIgnoreCase("auto") && dimensions == 3) {
+            mx = my = GridSizer.optimalM3D(n, l, rc, maxRadius);
+            System.out.printf("Auto M: %d%n", mx);
+        } else if (args[2].equalsIgnoreCase("auto")) {
+            int[] grid = GridSizer.optimalGrid(n, l, ly, rc, maxRadius, periodicAxes[0], periodicAxes[1]);
+            mx = grid[0];
+            my = grid[1];
+            System.out.printf("Auto M: %d x %d (expected pair checks: %.0f)%n", mx, my,
+                    GridSizer.expectedPairChecks(n, mx, my, periodicAxes[0], periodicAxes[1]));
+        } else {
+            // M for both axes, or "Mx,My"
+            String[] ms = args[2].split(",");
+            mx = Integer.parseInt(ms[0]);
+            my = Integer.parseInt(ms[ms.length - 1]);
         }
+        if (dimensions == 3 && !input.isSquare()) throw new InvalidParameterException("3d mode needs a cubic box");
+        Domain domain = dimensions == 3 ? new Domain(mx, n, l, rc, periodicAxes) : new Domain(mx, my, n, l, ly, rc, periodicAxes);
 
-        // Create cell mapping
-        particles.forEach(particle -> {
-            Cell cell = getParticleCell(particle);
-            List<Particle> list = particlesByCell.getOrDefault(cell, new ArrayList<>());
-            list.add(particle);
-            particlesByCell.put(cell, list);
-        });
+        boolean uniformPeriodic = periodicAxes[0] == periodicAxes[1];
+        if ((mode.equals("polydisperse") || mode.equals("frames") || mode.equals("verlet")) && !(domain.isSquare() && uniformPeriodic)) {
+            throw new InvalidParameterException("Mode " + mode + " needs a square box with the same boundary on both axes");
+        }
+        double cellLen = Math.min(domain.getCellLen(0), domain.getCellLen(1));
+        if (cellLen < rc) throw new InvalidParameterException("L/M must not be lower than Rc");
+        if (cellLen < rc + 2 * maxRadius && !mode.equals("polydisperse")) {
+            System.out.println("Warning: L/M is lower than Rc + 2*max radius, the single grid CIM may miss neighbors (use polydisperse mode)");
+        }
+        int m = mx;
+        if (stats != null) {
+            stats.put("n", n);
+            stats.put("dimensions", dimensions);
+            stats.put("mode", mode);
+            stats.put("mx", mx);
+            stats.put("my", my);
+            stats.put("rc", rc);
+            stats.put("order", order);
+            stats.put("threads", threads);
+        }
 
-        // Execute and measure CIM
-        Map<Integer, Set<Integer>> cimResults = findNeighborsCIM(particles, particlesByCell);
+        if (mode.equals("frames") || mode.equals("verlet")) {
+            if (stats != null) stats.begin("frames");
+            double skin = mode.equals("verlet") ? (args.length > 6 ? Double.parseDouble(args[6]) : 0.1 * rc) : 0;
+            try {
+                new MultiFrameNeighborSearch(m, rc, boundaryCond, skin).run(input, Path.of(dynamicFile),
+                        Path.of("output_" + n + "_" + "rc" + rc + "_frames.txt"));
+            } catch (IOException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+            writeStats(stats, statsFile);
+            return;
+        }
 
-        // Execute and measure Brute Force
-        Map<Integer, Set<Integer>> bruteForceResults = findNeighborsBruteForce(particles);
+        // Pairs and the store are filled straight from the search, so no other engine runs and no list is built
+        if (outputFormat.equals("pairs") || outputFormat.equals("store")) {
+            if (stats != null) stats.begin("output");
+            long startTime = System.currentTimeMillis();
+            // File order, so ids match the input
+            if (outputFormat.equals("pairs")) {
+                writePairsToFile("output_" + domain.getN() + "_" + "rc" + domain.getRc() + "_pairs", input.getParticles(), domain);
+            } else {
+                writeStoreToFile("output_" + domain.getN() + "_" + "rc" + domain.getRc(), input.getParticles(), domain);
+            }
+            System.out.println("Output written in " + (System.currentTimeMillis() - startTime) + " ms");
+            writeStats(stats, statsFile);
+            return;
+        }
 
-        // Verify results are the same (optional)
-        boolean resultsMatch = true;
-        for (Integer particleId : cimResults.keySet()) {
-            if (!cimResults.get(particleId).equals(bruteForceResults.get(particleId))) {
-                resultsMatch = false;
-                System.out.println("Results don't match for particle ID: " + particleId);
-                break;
+        ParticleOrdering ordering = null;
+        if (stats != null) stats.begin("ordering");
+        if (order.equals("file")) {
+            particles = input.toParticleList();
+        } else {
+            long orderStart = System.nanoTime();
+            ordering = ParticleOrdering.alongCurve(input.getParticles(), domain, ParticleOrdering.Curve.valueOf(order.toUpperCase()));
+            particles = ordering.toParticleList();
+            System.out.printf("Particles reordered along the %s curve in %.1f ms%n", order, (System.nanoTime() - orderStart) / 1e6);
+        }
+
+        // The map-based CIM only runs to be validated, and its cell mapping is only needed for that or for the auto engine choice
+        boolean validate = !validation.equals("none");
+        Map<Integer, Set<Integer>> cimResults = null;
+        String engine = mode;
+        if (validate || mode.equals("auto")) {
+            if (stats != null) stats.begin("map_cim");
+            particles.forEach(particle -> {
+                Cell cell = getParticleCell(particle, domain);
+                List<Particle> list = particlesByCell.getOrDefault(cell, new ArrayList<>());
+                list.add(particle);
+                particlesByCell.put(cell, list);
+            });
+            if (validate) {
+                long startTime = System.currentTimeMillis();
+                cimResults = findNeighborsCIM(particles, particlesByCell, domain);
+                System.out.println("Cell Index Method execution time: " + (System.currentTimeMillis() - startTime) + " ms");
             }
+            if (mode.equals("auto")) engine = chooseEngine(particlesByCell, domain);
         }
-        System.out.println("Results match: " + resultsMatch);
+        if (stats != null) stats.put("engine", engine);
+        NeighborList cimArrayResults = findNeighborsCIMArrays(particles, domain, engine, threads, stats);
 
-        writeResultsToFile("output_" + Constants.getN() + "_" + "rc" + Constants.getRc() + "_cim.txt", cimResults);
-        writeResultsToFile("output_" + Constants.getN() + "_" + "rc" + Constants.getRc() + "_bruteForce.txt", bruteForceResults);
+        // Every check runs in file order, so reordered results go back to it first
+        if (stats != null) stats.begin("validation");
+        NeighborList cimArrayOutput = ordering == null ? cimArrayResults : ordering.restore(cimArrayResults);
+        NeighborList bruteForceResults = null;
+        if (validation.equals("full")) {
+            // Execute and measure Brute Force
+            bruteForceResults = findNeighborsBruteForce(input.getParticles(), domain, threads);
+            // The map results are keyed by particle id, so the reference is compared in that shape
+            List<Particle> fileOrder = ordering == null ? particles : input.toParticleList();
+            System.out.println("Results match: " + cimResults.equals(bruteForceResults.toMap(fileOrder)));
+            System.out.println("Array CIM (" + engine + ") results match: " + cimArrayOutput.equals(bruteForceResults));
+        } else if (validate) {
+            // Only the sampled particles are searched by brute force, which keeps validation O(samples * N)
+            int samples = Integer.parseInt(validation);
+            BruteForceNeighborFinder reference = new BruteForceNeighborFinder(domain);
+            long validationStart = System.currentTimeMillis();
+            int[] mismatches = reference.findMismatches(input.getParticles(), samples, SAMPLE_SEED, NeighborList.fromMap(cimResults, n), cimArrayOutput);
+            int mapMismatch = mismatches[0];
+            int arrayMismatch = mismatches[1];
+            System.out.println("Sampled validation of " + Math.min(samples, n) + " particles: " + (System.currentTimeMillis() - validationStart) + " ms");
+            if (mapMismatch >= 0) System.out.println("Results don't match for particle ID: " + (mapMismatch + 1));
+            if (arrayMismatch >= 0) System.out.println("Array CIM (" + engine + ") results don't match for particle ID: " + (arrayMismatch + 1));
+            System.out.println("Results match (sampled): " + (mapMismatch < 0));
+            System.out.println("Array CIM (" + engine + ") results match (sampled): " + (arrayMismatch < 0));
+        }
+
+        if (stats != null) stats.begin("reports");
+        if (!domain.isSquare() && benchmarkReports) {
+            CellIndexMethod.reportPaddingSavings(ParticleArrays.fromParticles(particles), domain, 5);
+        }
+
+        if (parallel && benchmarkReports) {
+            ParallelCellIndexMethod.reportSpeedup(ParticleArrays.fromParticles(particles), domain, threads, 5);
+        }
+
+        if (stats != null) stats.begin("output");
+        long startTime = System.currentTimeMillis();
+        writeResultsToFile("output_" + domain.getN() + "_" + "rc" + domain.getRc() + "_cim", cimArrayOutput, outputFormat);
+        if (bruteForceResults != null) {
+            writeResultsToFile("output_" + domain.getN() + "_" + "rc" + domain.getRc() + "_bruteForce", bruteForceResults, outputFormat);
+        }
+        System.out.println("Output written in " + (System.currentTimeMillis() - startTime) + " ms");
+        writeStats(stats, statsFile);
     }
 }
\ No newline at end of file
@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Particle coordinates and their neighbor lists in a memory-mapped file, so the results live off the
+ * Java heap and later analysis can open them without searching again. The search that fills the file
+ * still reads the coordinates from the heap. Little endian:
+ * <pre>
+ * int32 magic "TP1S" | int32 version | int64 n | int64 nnz | int32 dimensions | int32 reserved
+ * | float64 x[n] | float64 y[n] | float64 z[n] (3D only) | float64 radius[n]
+ * | int64 offsets[n+1] | int32 indices[nnz]
+ * </pre>
+ * The offsets and indices are the CSR form of NeighborList (0-based, each row sorted).
+ * A mapping holds at most 2 GB, so the file is mapped in CHUNK_BYTES pieces. Every value is aligned
+ * to its size and chunks are a multiple of 8 bytes, so no value straddles two chunks.
+ */
+public class MappedNeighborStore implements AutoCloseable {
+    static final int MAGIC = 0x53315054; // "TP1S" read as little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final int n;
+    private final long nnz;
+    private final int dimensions;
+
+    private MappedNeighborStore(FileChannel channel, FileChannel.MapMode mode, long bytes, int n, long nnz, int dimensions) throws IOException {
+        this.channel = channel;
+        this.chunks = new MappedByteBuffer[(int) ((bytes + CHUNK_BYTES - 1) >>> CHUNK_SHIFT)];
+        for (int c = 0; c < chunks.length; c++) {
+            long start = (long) c << CHUNK_SHIFT;
+            chunks[c] = channel.map(mode, start, Math.min(CHUNK_BYTES, bytes - start));
+            chunks[c].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.n = n;
+        this.nnz = nnz;
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Runs the CIM of the domain (3D or 2D) twice over particles, counting the neighbors of every
+     * particle first and writing them straight into the mapped offsets and indices after that. The
+     * pairs never reach the heap, but the coordinates stay there until it returns: the search reads
+     * particles and, in 2D, the cell list's sorted copies, so they are held there and in the mapping.
+     * If a pass fails the store is closed before the exception propagates.
+     */
+    public static MappedNeighborStore create(Path path, ParticleArrays particles, Domain domain) throws IOException {
+        int n = particles.size();
+        int dimensions = domain.getDimensions();
+        PairSource pairs = pairSource(particles, domain);
+        NeighborCounter counter = new NeighborCounter(n);
+        pairs.forEachPair(counter);
+        int[] counts = counter.getCounts();
+        long nnz = 2 * counter.getPairCount();
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedNeighborStore store;
+        try {
+            store = new MappedNeighborStore(channel, FileChannel.MapMode.READ_WRITE, bytes(n, nnz, dimensions), n, nnz, dimensions);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        try {
+            fill(store, particles, pairs, counts);
+        } catch (RuntimeException | Error e) {
+            try {
+                store.close();
+            } catch (IOException closing) {
+                e.addSuppressed(closing);
+            }
+            throw e;
+        }
+        return store;
+    }
+
+    private static void fill(MappedNeighborStore store, ParticleArrays particles, PairSource pairs, int[] counts) {
+        int n = store.n;
+        int dimensions = store.dimensions;
+        store.putInt(0, MAGIC);
+        store.putInt(4, VERSION);
+        store.putLong(8, n);
+        store.putLong(16, store.nnz);
+        store.putInt(24, dimensions);
+        for (int i = 0; i < n; i++) {
+            store.putDouble(store.coordinate(0, i), particles.getX()[i]);
+            store.putDouble(store.coordinate(1, i), particles.getY()[i]);
+            if (dimensions == 3) store.putDouble(store.coordinate(2, i), particles.getZ()[i]);
+            store.putDouble(store.coordinate(dimensions, i), particles.getRadius()[i]);
+        }
+
+        long offset = 0;
+        for (int i = 0; i < n; i++) {
+            store.putLong(store.offsetAt(i), offset);
+            offset += counts[i];
+            counts[i] = 0; // From here on, how many neighbors of i are already written
+        }
+        store.putLong(store.offsetAt(n), offset);
+        pairs.forEachPair(PairConsumer.ignoringDistance((i, j, distance) -> {
+            store.putInt(store.indexAt(store.rowStart(i) + counts[i]++), j);
+            store.putInt(store.indexAt(store.rowStart(j) + counts[j]++), i);
+        }));
+        for (int i = 0; i < n; i++) {
+            store.sortRow(i);
+        }
+    }
+
+    // Both passes of a 2D search share one cell list
+    private static PairSource pairSource(ParticleArrays particles, Domain domain) {
+        if (domain.getDimensions() == 3) {
+            CellIndexMethod3D cim = new CellIndexMethod3D(domain);
+            return consumer -> cim.forEachPair(particles, consumer);
+        }
+        CellIndexMethod cim = new CellIndexMethod(domain);
+        CellList cells = cim.buildCells(particles);
+        return consumer -> cim.searchRows(cells, particles, 0, cim.getMy(), consumer);
+    }
+
+    private interface PairSource {
+        void forEachPair(PairConsumer consumer);
+    }
+
+    public static MappedNeighborStore open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedNeighborStore header = new MappedNeighborStore(channel, FileChannel.MapMode.READ_ONLY, HEADER_BYTES, 0, 0, 2);
+            if (header.getInt(0) != MAGIC) throw new IOException(path + " is not a neighbor store");
+            if (header.getInt(4) != VERSION) throw new IOException("Unsupported neighbor store version " + header.getInt(4));
+            int n = (int) header.getLong(8);
+            long nnz = header.getLong(16);
+            int dimensions = header.getInt(24);
+            return new MappedNeighborStore(channel, FileChannel.MapMode.READ_ONLY, bytes(n, nnz, dimensions), n, nnz, dimensions);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long bytes(int n, long nnz, int dimensions) {
+        return HEADER_BYTES + 8L * (dimensions + 1) * n + 8L * (n + 1) + 4L * nnz;
+    }
+
+    // Byte position of coordinate column c (x, y, z..., radius last) for particle i
+    private long coordinate(int column, int i) {
+        return HEADER_BYTES + 8L * ((long) column * n + i);
+    }
+
+    private long offsetAt(int i) {
+        return coordinate(dimensions + 1, 0) + 8L * i;
+    }
+
+    private long indexAt(long k) {
+        return offsetAt(n + 1) + 4L * k;
+    }
+
+    private long rowStart(int i) {
+        return getLong(offsetAt(i));
+    }
+
+    // Rows are as short as the neighbor counts, so insertion sort in place is enough
+    private void sortRow(int i) {
+        long from = rowStart(i);
+        long to = rowStart(i + 1);
+        for (long a = from + 1; a < to; a++) {
+            int value = getInt(indexAt(a));
+            long b = a - 1;
+            while (b >= from && getInt(indexAt(b)) > value) {
+                putInt(indexAt(b + 1), getInt(indexAt(b)));
+                b--;
+            }
+            putInt(indexAt(b + 1), value);
+        }
+    }
+
+    private MappedByteBuffer chunk(long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)];
+    }
+
+    private int local(long position) {
+        return (int) (position & (CHUNK_BYTES - 1));
+    }
+
+    private int getInt(long position) {
+        return chunk(position).getInt(local(position));
+    }
+
+    private void putInt(long position, int value) {
+        chunk(position).putInt(local(position), value);
+    }
+
+    private long getLong(long position) {
+        return chunk(position).getLong(local(position));
+    }
+
+    private void putLong(long position, long value) {
+        chunk(position).putLong(local(position), value);
+    }
+
+    private double getDouble(long position) {
+        return chunk(position).getDouble(local(position));
+    }
+
+    private void putDouble(long position, double value) {
+        chunk(position).putDouble(local(position), value);
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public long getPairCount() {
+        return nnz / 2;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public double getX(int i) {
+        return getDouble(coordinate(0, i));
+    }
+
+    public double getY(int i) {
+        return getDouble(coordinate(1, i));
+    }
+
+    public double getZ(int i) {
+        return dimensions == 3 ? getDouble(coordinate(2, i)) : 0;
+    }
+
+    public double getRadius(int i) {
+        return getDouble(coordinate(dimensions, i));
+    }
+
+    public int neighborCount(int i) {
+        return (int) (rowStart(i + 1) - rowStart(i));
+    }
+
+    // k-th neighbor (0-based, ascending) of particle i
+    public int neighbor(int i, int k) {
+        return getInt(indexAt(rowStart(i) + k));
+    }
+
+    /**
+     * Copies the coordinates back into heap arrays, e.g. to search again with other parameters.
+     */
+    public ParticleArrays toParticleArrays() {
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = dimensions == 3 ? new double[n] : null;
+        double[] radius = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = getX(i);
+            y[i] = getY(i);
+            if (z != null) z[i] = getZ(i);
+            radius[i] = getRadius(i);
+        }
+        return new ParticleArrays(x, y, z, radius);
+    }
+
+    // Heap copy of the lists; only for stores whose nnz fits in an int
+    public NeighborList toNeighborList() {
+        if (nnz > Integer.MAX_VALUE) throw new IllegalStateException("Too many neighbors for a NeighborList: " + nnz);
+        int[] offsets = new int[n + 1];
+        int[] indices = new int[(int) nnz];
+        for (int i = 0; i <= n; i++) {
+            offsets[i] = (int) rowStart(i);
+        }
+        for (int k = 0; k < nnz; k++) {
+            indices[k] = getInt(indexAt(k));
+        }
+        return new NeighborList(offsets, indices);
+    }
+
+    // Writes dirty pages of a created store back to the file
+    public void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Closes the file. The mappings themselves are released when the buffers are garbage collected,
+     * which is the only way Java 21 offers without the preview Foreign Memory API.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!chunks[0].isReadOnly()) force();
+        channel.close();
+    }
+}
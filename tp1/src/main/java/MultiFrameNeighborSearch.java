@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Runs the incremental CIM (or Verlet lists when a skin is given) over every frame of a dynamic file and
+ * streams one neighbor list per frame, each preceded by its time line, the same way frames are laid out
+ * in the dynamic file.
+ */
+public class MultiFrameNeighborSearch {
+    private final int m;
+    private final double rc;
+    private final boolean periodic;
+    private final double skin;
+
+    public MultiFrameNeighborSearch(int m, double rc, boolean periodic) {
+        this(m, rc, periodic, 0);
+    }
+
+    public MultiFrameNeighborSearch(int m, double rc, boolean periodic, double skin) {
+        this.m = m;
+        this.rc = rc;
+        this.periodic = periodic;
+        this.skin = skin;
+    }
+
+    /**
+     * Returns the per-frame latencies (cell update + search + write) in nanoseconds.
+     */
+    public long[] run(ParticleInput staticInput, Path dynamicPath, Path outputPath) throws IOException {
+        ParticleArrays particles = staticInput.getParticles();
+        int n = particles.size();
+        IncrementalCellIndexMethod cim = skin > 0 ? null : new IncrementalCellIndexMethod(n, m, staticInput.getL(), rc, periodic);
+        VerletNeighborList verlet = skin > 0 ? new VerletNeighborList(staticInput.getL(), rc, skin, periodic) : null;
+        long[] latencies = new long[64];
+        int frames = 0;
+        long movedParticles = 0;
+
+        try (FastInputReader reader = new FastInputReader(dynamicPath);
+             NeighborListWriter writer = new NeighborListWriter(outputPath)) {
+            while (true) {
+                int count = reader.nextFrame(particles.getX(), particles.getY());
+                if (count == 0) break;
+                if (count != n) {
+                    throw new IOException("Frame " + frames + " has " + count + " particles, expected " + n);
+                }
+                long startTime = System.nanoTime();
+                NeighborList neighbors = verlet != null ? verlet.findNeighbors(particles) : cim.findNeighbors(particles);
+                writer.write(reader.getFrameTime() + "\n");
+                writer.write(neighbors);
+                long elapsed = System.nanoTime() - startTime;
+
+                if (frames == latencies.length) latencies = Arrays.copyOf(latencies, frames * 2);
+                latencies[frames++] = elapsed;
+                movedParticles += frames > 1 && cim != null ? cim.getMovedParticles() : 0;
+            }
+        }
+
+        latencies = Arrays.copyOf(latencies, frames);
+        if (verlet != null) {
+            System.out.printf("Frames: %d, Verlet rebuilds: %d (every %.1f frames), candidate pairs per neighbor pair: %.2f, build M: %d%n",
+                    frames, verlet.getBuilds(), verlet.getBuilds() == 0 ? 0.0 : 1 / verlet.getRebuildFrequency(),
+                    verlet.getCandidateOverhead(), verlet.getBuildM());
+        } else {
+            System.out.printf("Frames: %d, particles moved between cells per frame: %.1f%n",
+                    frames, frames > 1 ? (double) movedParticles / (frames - 1) : 0.0);
+        }
+        printPercentiles(latencies);
+        return latencies;
+    }
+
+    static void printPercentiles(long[] latencies) {
+        if (latencies.length == 0) return;
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("Frame latency (ms): p50 %.3f, p90 %.3f, p99 %.3f, max %.3f%n",
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.90) / 1e6,
+                percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    // Nearest-rank percentile over a sorted array
+    static long percentile(long[] sorted, double q) {
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
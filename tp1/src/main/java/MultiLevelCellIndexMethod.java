@@ -0,0 +1,171 @@
+import java.util.Arrays;
+
+/**
+ * Exact CIM for polydisperse radii. Particles are split in levels by radius (level k holds radii up to
+ * base * 2^k) and each level gets its own grid with cells at least Rc + 2 * rmax(level) wide, so the bulk
+ * of small particles keeps a fine grid. Pairs inside a level use the usual half-shell search; pairs across
+ * levels are found by querying every particle of the larger level against the cells of the smaller one.
+ */
+public class MultiLevelCellIndexMethod implements NeighborFinder {
+    // Radius quantile used as the upper bound of level 0
+    private static final double BASE_QUANTILE = 0.9;
+
+    private final double l;
+    private final double rc;
+    private final boolean periodic;
+    private final DistanceKernel kernel;
+    private long candidatePairs;
+    private int levelCount;
+
+    public MultiLevelCellIndexMethod(Domain domain) {
+        this(domain.getL(), domain.getRc(), domain.isPeriodic());
+    }
+
+    public MultiLevelCellIndexMethod(double l, double rc, boolean periodic) {
+        this.l = l;
+        this.rc = rc;
+        this.periodic = periodic;
+        this.kernel = new DistanceKernel(l, rc, periodic);
+    }
+
+    @Override
+    public NeighborList findNeighbors(ParticleArrays particles) {
+        int n = particles.size();
+        double[] radius = particles.getRadius();
+        int[] levelOf = assignLevels(radius);
+
+        Level[] levels = new Level[levelCount];
+        for (int k = 0; k < levelCount; k++) {
+            levels[k] = new Level(particles, levelOf, k);
+        }
+
+        PairBuffer pairs = new PairBuffer(n);
+        candidatePairs = 0;
+        for (Level level : levels) {
+            if (level.size() == 0) continue;
+            PairBuffer local = new PairBuffer(level.size());
+            CellIndexMethod cim = new CellIndexMethod(level.cells.getMx(), l, rc, periodic);
+            candidatePairs += cim.searchRows(level.cells, level.particles, 0, level.cells.getMy(), local);
+            for (int p = 0; p < local.size(); p++) {
+                pairs.add(level.globalIndex[local.first(p)], level.globalIndex[local.second(p)]);
+            }
+        }
+        for (int big = 1; big < levelCount; big++) {
+            for (int small = 0; small < big; small++) {
+                if (levels[small].size() == 0) continue;
+                for (int i : levels[big].globalIndex) {
+                    candidatePairs += queryLevel(particles, i, levels[small], pairs);
+                }
+            }
+        }
+        return NeighborList.fromPairs(n, pairs);
+    }
+
+    private int[] assignLevels(double[] radius) {
+        int[] levelOf = new int[radius.length];
+        if (radius.length == 0) {
+            levelCount = 1;
+            return levelOf;
+        }
+        double[] sorted = radius.clone();
+        Arrays.sort(sorted);
+        double base = sorted[(int) Math.min(sorted.length - 1, Math.floor(BASE_QUANTILE * sorted.length))];
+        double max = sorted[sorted.length - 1];
+        if (base <= 0) base = rc > 0 ? rc / 2 : max;
+
+        int maxLevel = 0;
+        for (int i = 0; i < radius.length; i++) {
+            int level = radius[i] <= base ? 0 : (int) Math.ceil(Math.log(radius[i] / base) / Math.log(2));
+            levelOf[i] = level;
+            maxLevel = Math.max(maxLevel, level);
+        }
+        levelCount = maxLevel + 1;
+        return levelOf;
+    }
+
+    /**
+     * Checks particle i against every particle of the level whose cell lies within Rc + r_i + rmax(level).
+     */
+    private long queryLevel(ParticleArrays particles, int i, Level level, PairBuffer pairs) {
+        CellList cells = level.cells;
+        int m = cells.getMx();
+        double cellLen = cells.getCellLenX();
+        double reach = rc + particles.getRadius()[i] + level.maxRadius;
+        int span = (int) Math.ceil(reach / cellLen);
+        int cx = CellList.cellCoord(particles.getX()[i], cellLen, m);
+        int cy = CellList.cellCoord(particles.getY()[i], cellLen, m);
+
+        int fromX, toX, fromY, toY;
+        if (periodic && 2 * span + 1 >= m) {
+            fromX = 0; toX = m - 1; fromY = 0; toY = m - 1;
+        } else if (periodic) {
+            fromX = cx - span; toX = cx + span; fromY = cy - span; toY = cy + span;
+        } else {
+            fromX = Math.max(0, cx - span); toX = Math.min(m - 1, cx + span);
+            fromY = Math.max(0, cy - span); toY = Math.min(m - 1, cy + span);
+        }
+
+        int[] start = cells.getCellStart();
+        int[] members = cells.getCellParticles();
+        double[] px = particles.getX();
+        double[] py = particles.getY();
+        double[] pr = particles.getRadius();
+        long candidates = 0;
+        for (int y = fromY; y <= toY; y++) {
+            int wy = (y + m) % m;
+            for (int x = fromX; x <= toX; x++) {
+                int cell = (x + m) % m + m * wy;
+                for (int b = start[cell]; b < start[cell + 1]; b++) {
+                    int j = level.globalIndex[members[b]];
+                    candidates++;
+                    if (kernel.isNeighbor(px[i], py[i], pr[i], px[j], py[j], pr[j])) pairs.add(i, j);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    private class Level {
+        final int[] globalIndex;
+        final ParticleArrays particles;
+        final double maxRadius;
+        final CellList cells;
+
+        Level(ParticleArrays all, int[] levelOf, int level) {
+            int count = 0;
+            for (int lv : levelOf) {
+                if (lv == level) count++;
+            }
+            globalIndex = new int[count];
+            double[] x = new double[count];
+            double[] y = new double[count];
+            double[] r = new double[count];
+            int k = 0;
+            for (int i = 0; i < levelOf.length; i++) {
+                if (levelOf[i] != level) continue;
+                globalIndex[k] = i;
+                x[k] = all.getX()[i];
+                y[k] = all.getY()[i];
+                r[k] = all.getRadius()[i];
+                k++;
+            }
+            particles = new ParticleArrays(x, y, r);
+            maxRadius = particles.getMaxRadius();
+            int m = GridSizer.optimalM(count, l, rc, maxRadius, periodic);
+            cells = new CellList(particles, m, l / m);
+        }
+
+        int size() {
+            return globalIndex.length;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * PairConsumer that only keeps the number of neighbors of each particle and the number of pairs.
+ */
+public class NeighborCounter implements PairConsumer {
+    private final int[] counts;
+    private long pairs;
+
+    public NeighborCounter(int n) {
+        this.counts = new int[n];
+    }
+
+    @Override
+    public void accept(int i, int j, double distance) {
+        counts[i]++;
+        counts[j]++;
+        pairs++;
+    }
+
+    @Override
+    public boolean needsDistance() {
+        return false;
+    }
+
+    public int getCount(int particle) {
+        return counts[particle];
+    }
+
+    public int[] getCounts() {
+        return counts;
+    }
+
+    public long getPairCount() {
+        return pairs;
+    }
+}
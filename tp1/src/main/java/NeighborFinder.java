@@ -0,0 +1,14 @@
+/**
+ * A single-frame neighbor search engine. Implementations return every pair whose border-to-border
+ * distance is at most Rc (as DistanceKernel defines it), so they can be swapped for one another.
+ */
+public interface NeighborFinder {
+    NeighborList findNeighbors(ParticleArrays particles);
+
+    // Pair distance tests done by the last search
+    long getCandidatePairs();
+
+    // Phases of later searches are recorded in stats (null turns it off); engines without phases ignore it
+    default void setStats(SearchStats stats) {
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.*;
+
+/**
+ * Neighbor lists in CSR form: the neighbors of particle index i are
+ * indices[offsets[i] .. offsets[i+1]), sorted ascending. Indices are 0-based (id - 1).
+ */
+public class NeighborList {
+    private final int[] offsets;
+    private final int[] indices;
+
+    public NeighborList(int[] offsets, int[] indices) {
+        this.offsets = offsets;
+        this.indices = indices;
+    }
+
+    /**
+     * Builds the symmetric CSR lists from unordered pairs, each pair stored once.
+     */
+    public static NeighborList fromPairs(int n, PairBuffer... buffers) {
+        int[] offsets = new int[n + 1];
+        for (PairBuffer buffer : buffers) {
+            for (int p = 0; p < buffer.size(); p++) {
+                offsets[buffer.first(p) + 1]++;
+                offsets[buffer.second(p) + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] indices = new int[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (PairBuffer buffer : buffers) {
+            for (int p = 0; p < buffer.size(); p++) {
+                int i = buffer.first(p);
+                int j = buffer.second(p);
+                indices[fill[i]++] = j;
+                indices[fill[j]++] = i;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            Arrays.sort(indices, offsets[i], offsets[i + 1]);
+        }
+        return new NeighborList(offsets, indices);
+    }
+
+    /**
+     * Builds the CSR form of a map-based result keyed by particle id (ids 1..n).
+     */
+    public static NeighborList fromMap(Map<Integer, Set<Integer>> nearParticles, int n) {
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + nearParticles.getOrDefault(i + 1, Set.of()).size();
+        }
+        int[] indices = new int[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            int k = offsets[i];
+            for (int id : nearParticles.getOrDefault(i + 1, Set.of())) {
+                indices[k++] = id - 1;
+            }
+            Arrays.sort(indices, offsets[i], offsets[i + 1]);
+        }
+        return new NeighborList(offsets, indices);
+    }
+
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    public int neighborCount(int particle) {
+        return offsets[particle + 1] - offsets[particle];
+    }
+
+    public int getPairCount() {
+        return indices.length / 2;
+    }
+
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    public int[] getIndices() {
+        return indices;
+    }
+
+    // Same lists; rows are sorted, so comparing the CSR arrays is enough
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NeighborList other)) return false;
+        return Arrays.equals(offsets, other.offsets) && Arrays.equals(indices, other.indices);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(offsets) + Arrays.hashCode(indices);
+    }
+
+    /**
+     * Adapter to the map-based output of Main.findNeighborsCIM, keyed by particle id.
+     */
+    public Map<Integer, Set<Integer>> toMap(List<Particle> particles) {
+        Map<Integer, Set<Integer>> nearParticles = new HashMap<>();
+        for (int i = 0; i < size(); i++) {
+            Set<Integer> neighbors = new HashSet<>();
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                neighbors.add(particles.get(indices[k]).getId());
+            }
+            nearParticles.put(particles.get(i).getId(), neighbors);
+        }
+        return nearParticles;
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes neighbor lists in the "id: n1, n2, ..." text format (or single pairs as "id1 id2 distance")
+ * by appending digits into a reusable byte buffer that is flushed through a FileChannel. Ids are
+ * index + 1.
+ */
+public class NeighborListWriter implements AutoCloseable {
+    static final int BINARY_MAGIC = 0x4E315054; // "TP1N" read as little endian
+    static final int BINARY_VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 16;
+    // Longest int plus separators
+    private static final int MAX_TOKEN_BYTES = 16;
+    private static final int DISTANCE_DECIMALS = 6;
+    private static final long DISTANCE_SCALE = 1_000_000;
+
+    private final FileChannel channel;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+    private final byte[] digits = new byte[20];
+    private int size;
+
+    public NeighborListWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public static void writeText(Path path, NeighborList neighbors) throws IOException {
+        try (NeighborListWriter writer = new NeighborListWriter(path)) {
+            writer.write(neighbors);
+        }
+    }
+
+    public void write(NeighborList neighbors) throws IOException {
+        int[] offsets = neighbors.getOffsets();
+        int[] indices = neighbors.getIndices();
+        for (int i = 0; i < neighbors.size(); i++) {
+            ensure(MAX_TOKEN_BYTES);
+            putLong(i + 1);
+            buffer[size++] = ':';
+            buffer[size++] = ' ';
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                ensure(MAX_TOKEN_BYTES);
+                if (k > offsets[i]) {
+                    buffer[size++] = ',';
+                    buffer[size++] = ' ';
+                }
+                putLong(indices[k] + 1);
+            }
+            ensure(1);
+            buffer[size++] = '\n';
+        }
+    }
+
+    public void writePair(int i, int j, double distance) throws IOException {
+        ensure(3 * MAX_TOKEN_BYTES + DISTANCE_DECIMALS);
+        putLong(i + 1);
+        buffer[size++] = ' ';
+        putLong(j + 1);
+        buffer[size++] = ' ';
+        // Fixed point, so no String is built per pair
+        long scaled = Math.round(Math.abs(distance) * DISTANCE_SCALE);
+        if (distance < 0 && scaled != 0) buffer[size++] = '-';
+        putLong(scaled / DISTANCE_SCALE);
+        buffer[size++] = '.';
+        long fraction = scaled % DISTANCE_SCALE;
+        for (long unit = DISTANCE_SCALE / 10; unit > 0; unit /= 10) {
+            buffer[size++] = (byte) ('0' + fraction / unit % 10);
+        }
+        buffer[size++] = '\n';
+    }
+
+    public void write(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > buffer.length) {
+            flush();
+            writeFully(ByteBuffer.wrap(bytes));
+            return;
+        }
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void putLong(long value) {
+        if (value == 0) {
+            buffer[size++] = '0';
+            return;
+        }
+        long v = value;
+        if (v < 0) {
+            buffer[size++] = '-';
+            v = -v;
+        }
+        int count = 0;
+        while (v > 0) {
+            digits[count++] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        while (count > 0) {
+            buffer[size++] = digits[--count];
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (size + bytes > buffer.length) flush();
+    }
+
+    public void flush() throws IOException {
+        wrapped.clear().limit(size);
+        writeFully(wrapped);
+        size = 0;
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Binary CSR output, little endian:
+     * <pre>
+     * int32 magic "TP1N" | int32 version | int64 n | int64 nnz | int64 offsets[n+1] | int32 indices[nnz]
+     * </pre>
+     * Indices are 0-based particle indices (id - 1).
+     */
+    public static void writeBinary(Path path, NeighborList neighbors) throws IOException {
+        int[] offsets = neighbors.getOffsets();
+        int[] indices = neighbors.getIndices();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putLong(neighbors.size()).putLong(indices.length);
+            for (int offset : offsets) {
+                if (out.remaining() < Long.BYTES) drain(channel, out);
+                out.putLong(offset);
+            }
+            for (int index : indices) {
+                if (out.remaining() < Integer.BYTES) drain(channel, out);
+                out.putInt(index);
+            }
+            drain(channel, out);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.Arrays;
+
+/**
+ * Growable buffer of (i, j) particle index pairs stored interleaved in a single int array.
+ * As a PairConsumer it keeps the pair and drops the distance.
+ */
+public class PairBuffer implements PairConsumer {
+    private int[] pairs;
+    private int size;
+
+    public PairBuffer() {
+        this(1024);
+    }
+
+    public PairBuffer(int initialPairs) {
+        this.pairs = new int[Math.max(2, initialPairs * 2)];
+    }
+
+    public void add(int i, int j) {
+        if (size * 2 + 2 > pairs.length) {
+            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+        }
+        pairs[size * 2] = i;
+        pairs[size * 2 + 1] = j;
+        size++;
+    }
+
+    @Override
+    public void accept(int i, int j, double distance) {
+        add(i, j);
+    }
+
+    @Override
+    public boolean needsDistance() {
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int first(int pair) {
+        return pairs[pair * 2];
+    }
+
+    public int second(int pair) {
+        return pairs[pair * 2 + 1];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
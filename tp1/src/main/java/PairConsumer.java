@@ -0,0 +1,48 @@
+/**
+ * Receives neighbor pairs while a search finds them, so callers that only need counts, a histogram or
+ * a stream of pairs never hold the full lists. i and j are particle indices (id - 1), every unordered
+ * pair arrives once in no particular order, and distance is the border-to-border distance (through
+ * the minimum image on periodic axes) that was compared against Rc.
+ * The search itself only compares squared distances; the square root for distance is taken only for
+ * consumers whose needsDistance is true, the others get NaN.
+ */
+@FunctionalInterface
+public interface PairConsumer {
+    void accept(int i, int j, double distance);
+
+    default boolean needsDistance() {
+        return true;
+    }
+
+    default PairConsumer andThen(PairConsumer next) {
+        PairConsumer first = this;
+        boolean needsDistance = first.needsDistance() || next.needsDistance();
+        return new PairConsumer() {
+            @Override
+            public void accept(int i, int j, double distance) {
+                first.accept(i, j, distance);
+                next.accept(i, j, distance);
+            }
+
+            @Override
+            public boolean needsDistance() {
+                return needsDistance;
+            }
+        };
+    }
+
+    // For lambdas that only use i and j
+    static PairConsumer ignoringDistance(PairConsumer consumer) {
+        return new PairConsumer() {
+            @Override
+            public void accept(int i, int j, double distance) {
+                consumer.accept(i, j, distance);
+            }
+
+            @Override
+            public boolean needsDistance() {
+                return false;
+            }
+        };
+    }
+}
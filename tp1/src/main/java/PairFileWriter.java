@@ -0,0 +1,30 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * PairConsumer that writes one "id1 id2 distance" line per pair (ids are index + 1, distance with
+ * 6 decimals) through a NeighborListWriter. A search cannot throw IOException, so write errors
+ * surface as UncheckedIOException.
+ */
+public class PairFileWriter implements PairConsumer, AutoCloseable {
+    private final NeighborListWriter writer;
+
+    public PairFileWriter(Path path) throws IOException {
+        this.writer = new NeighborListWriter(path);
+    }
+
+    @Override
+    public void accept(int i, int j, double distance) {
+        try {
+            writer.writePair(i, j, distance);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Cell Index Method split in horizontal stripes of cell rows on a ForkJoinPool.
+ * Each stripe collects its pairs in its own PairBuffer; buffers are merged in stripe
+ * order, so the output does not depend on scheduling.
+ */
+public class ParallelCellIndexMethod implements NeighborFinder {
+    // More stripes than threads so uneven rows still balance
+    private static final int STRIPES_PER_THREAD = 4;
+
+    private final CellIndexMethod cim;
+    private final ForkJoinPool pool;
+    private long candidatePairs;
+    private SearchStats stats;
+
+    public ParallelCellIndexMethod(Domain domain, ForkJoinPool pool) {
+        this.cim = new CellIndexMethod(domain);
+        this.pool = pool;
+    }
+
+    public ParallelCellIndexMethod(int m, double l, double rc, boolean periodic, ForkJoinPool pool) {
+        this.cim = new CellIndexMethod(m, l, rc, periodic);
+        this.pool = pool;
+    }
+
+    @Override
+    public NeighborList findNeighbors(ParticleArrays particles) {
+        int rows = cim.getMy();
+        if (stats != null) stats.enter("binning");
+        CellList cells = cim.buildCells(particles);
+        if (stats != null) {
+            stats.recordOccupancy(cells.getCellStart());
+            stats.begin("search");
+        }
+        int stripes = Math.min(rows, pool.getParallelism() * STRIPES_PER_THREAD);
+        PairBuffer[] buffers = new PairBuffer[stripes];
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>(stripes);
+
+        for (int s = 0; s < stripes; s++) {
+            int fromRow = (int) ((long) rows * s / stripes);
+            int toRow = (int) ((long) rows * (s + 1) / stripes);
+            PairBuffer buffer = new PairBuffer(particles.size() / stripes + 1);
+            buffers[s] = buffer;
+            tasks.add(pool.submit(() -> cim.searchRows(cells, particles, fromRow, toRow, buffer)));
+        }
+
+        candidatePairs = 0;
+        for (ForkJoinTask<Long> task : tasks) {
+            candidatePairs += task.join();
+        }
+        if (stats != null) stats.begin("lists");
+        NeighborList neighbors = NeighborList.fromPairs(particles.size(), buffers);
+        if (stats != null) stats.exit();
+        return neighbors;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    /**
+     * Times the sequential engine and the parallel one on 1..maxThreads threads and prints the speedups.
+     */
+    public static void reportSpeedup(ParticleArrays particles, Domain domain, int maxThreads, int repetitions) {
+        CellIndexMethod sequential = new CellIndexMethod(domain);
+        long sequentialNanos = bestOf(repetitions, () -> sequential.findNeighbors(particles));
+        System.out.printf("Sequential CIM: %.3f ms%n", sequentialNanos / 1e6);
+
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                ParallelCellIndexMethod parallel = new ParallelCellIndexMethod(domain, pool);
+                long parallelNanos = bestOf(repetitions, () -> parallel.findNeighbors(particles));
+                System.out.printf("Parallel CIM, %d threads: %.3f ms (speedup %.2fx)%n",
+                        threads, parallelNanos / 1e6, (double) sequentialNanos / parallelNanos);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static long bestOf(int repetitions, Runnable run) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < repetitions; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -1,12 +1,18 @@
 public class Particle {
     private final double x;
     private final double y;
+    private final double z;
     private final int id;
     private final double radius;
 
     public Particle(double x, double y, int id, double radius) {
+        this(x, y, 0, id, radius);
+    }
+
+    public Particle(double x, double y, double z, int id, double radius) {
         this.x = x;
         this.y = y;
+        this.z = z;
         this.id = id;
         this.radius = radius;
     }
@@ -19,6 +25,10 @@ public class Particle {
         return y;
     }
 
+    public double getZ() {
+        return z;
+    }
+
     public int getId() {
         return id;
     }
@@ -27,14 +37,19 @@ public class Particle {
         return radius;
     }
 
-    public double distanceTo(Particle other) {
-        double dx = Constants.getBoundaryCond() ?
-                Math.min(Math.abs(this.x - other.x), Constants.getL() - Math.abs(this.x - other.x)) :
-                Math.abs(this.x - other.x);
-        double dy = Constants.getBoundaryCond() ?
-                Math.min(Math.abs(this.y - other.y), Constants.getL() - Math.abs(this.y - other.y)) :
-                Math.abs(this.y - other.y);
+    public double distanceTo(Particle other, Domain domain) {
+        double dx = this.x - other.x;
+        double dy = this.y - other.y;
+        double dz = this.z - other.z;
+        if (domain.isPeriodic(0)) dx = DistanceKernel.minimumImage(dx, domain.getL(0), 1 / domain.getL(0));
+        if (domain.isPeriodic(1)) dy = DistanceKernel.minimumImage(dy, domain.getL(1), 1 / domain.getL(1));
+        if (domain.getDimensions() == 3 && domain.isPeriodic(2)) dz = DistanceKernel.minimumImage(dz, domain.getL(2), 1 / domain.getL(2));
+
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
 
-        return Math.sqrt(dx * dx + dy * dy);
+    // Border-to-border distance <= Rc, compared on squared distances; z is 0 for 2D particles
+    public boolean isNeighbor(Particle other, DistanceKernel kernel) {
+        return kernel.isNeighbor(this.x, this.y, this.z, this.radius, other.x, other.y, other.z, other.radius);
     }
 }
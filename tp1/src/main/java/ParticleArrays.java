@@ -0,0 +1,78 @@
+import java.util.List;
+
+/**
+ * Structure-of-arrays view of the particles: index i holds the particle with id i+1.
+ * z is null for 2D particles.
+ */
+public class ParticleArrays {
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final double[] radius;
+
+    public ParticleArrays(double[] x, double[] y, double[] radius) {
+        this(x, y, null, radius);
+    }
+
+    public ParticleArrays(double[] x, double[] y, double[] z, double[] radius) {
+        if (x.length != y.length || x.length != radius.length || (z != null && z.length != x.length)) {
+            throw new IllegalArgumentException("x, y, z and radius must have the same length");
+        }
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.radius = radius;
+    }
+
+    public static ParticleArrays fromParticles(List<Particle> particles) {
+        return fromParticles(particles, 2);
+    }
+
+    public static ParticleArrays fromParticles(List<Particle> particles, int dimensions) {
+        int n = particles.size();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = dimensions == 3 ? new double[n] : null;
+        double[] radius = new double[n];
+        for (int i = 0; i < n; i++) {
+            Particle particle = particles.get(i);
+            x[i] = particle.getX();
+            y[i] = particle.getY();
+            if (z != null) z[i] = particle.getZ();
+            radius[i] = particle.getRadius();
+        }
+        return new ParticleArrays(x, y, z, radius);
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    public double[] getX() {
+        return x;
+    }
+
+    public double[] getY() {
+        return y;
+    }
+
+    public double[] getZ() {
+        return z;
+    }
+
+    public int getDimensions() {
+        return z == null ? 2 : 3;
+    }
+
+    public double[] getRadius() {
+        return radius;
+    }
+
+    public double getMaxRadius() {
+        double max = 0;
+        for (double r : radius) {
+            max = Math.max(max, r);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contents of a static/dynamic input pair: declared N, sides Lx and Ly (equal for square boxes) and
+ * the particle columns.
+ */
+public class ParticleInput {
+    private final int n;
+    private final double l;
+    private final double ly;
+    private final ParticleArrays particles;
+
+    public ParticleInput(int n, double l, ParticleArrays particles) {
+        this(n, l, l, particles);
+    }
+
+    public ParticleInput(int n, double lx, double ly, ParticleArrays particles) {
+        this.n = n;
+        this.l = lx;
+        this.ly = ly;
+        this.particles = particles;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    // Side along x, the only side of square boxes
+    public double getL() {
+        return l;
+    }
+
+    public double getLy() {
+        return ly;
+    }
+
+    public boolean isSquare() {
+        return l == ly;
+    }
+
+    public ParticleArrays getParticles() {
+        return particles;
+    }
+
+    public List<Particle> toParticleList() {
+        List<Particle> list = new ArrayList<>(particles.size());
+        double[] z = particles.getZ();
+        for (int i = 0; i < particles.size(); i++) {
+            list.add(new Particle(particles.getX()[i], particles.getY()[i], z == null ? 0 : z[i], i + 1, particles.getRadius()[i]));
+        }
+        return list;
+    }
+}
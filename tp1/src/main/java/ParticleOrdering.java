@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Optional preprocessing that renumbers particles along a space-filling curve over the CIM cells, so
+ * particles of the same cell, and of nearby cells, sit next to each other in memory instead of in file
+ * order. Particles keep their original id: originalIndex[k] is the file index of the k-th particle in
+ * curve order, and restore maps a NeighborList computed on the reordered particles back to file order.
+ * Morton order works in 2D and 3D; Hilbert order, which never jumps between distant cells, is 2D only.
+ */
+public class ParticleOrdering {
+    public enum Curve { MORTON, HILBERT }
+
+    private final ParticleArrays particles;
+    private final int[] originalIndex;
+
+    private ParticleOrdering(ParticleArrays particles, int[] originalIndex) {
+        this.particles = particles;
+        this.originalIndex = originalIndex;
+    }
+
+    public static ParticleOrdering alongCurve(ParticleArrays particles, Domain domain, Curve curve) {
+        int dimensions = particles.getDimensions();
+        if (curve == Curve.HILBERT && dimensions != 2) throw new IllegalArgumentException("Hilbert order is only available in 2D");
+        int n = particles.size();
+        int mx = domain.getM(0);
+        int my = domain.getM(1);
+        int mz = dimensions == 3 ? domain.getM(2) : 1;
+        int cells = mx * my * mz;
+        int side = Integer.highestOneBit(Math.max(mx, Math.max(my, mz)) - 1 | 1) << 1;
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] z = particles.getZ();
+
+        // Counting sort by cell number as in CellList; it is stable, so each cell keeps file order
+        int[] cellStart = new int[cells + 1];
+        int[] particleCell = new int[n];
+        for (int i = 0; i < n; i++) {
+            int cell = CellList.cellCoord(x[i], domain.getCellLen(0), mx) + mx * CellList.cellCoord(y[i], domain.getCellLen(1), my);
+            if (z != null) cell += mx * my * CellList.cellCoord(z[i], domain.getCellLen(2), mz);
+            particleCell[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        for (int i = 0; i < n; i++) {
+            members[fill[particleCell[i]]++] = i;
+        }
+
+        // Both curves map cells one to one onto keys, so sorting the keys alone gives the cell order
+        long[] keys = new long[cells];
+        for (int c = 0; c < cells; c++) {
+            int cx = c % mx;
+            int cy = c / mx % my;
+            int cz = c / (mx * my);
+            keys[c] = dimensions == 3 ? morton(cx, cy, cz) : curve == Curve.HILBERT ? hilbert(cx, cy, side) : morton(cx, cy);
+        }
+        Arrays.sort(keys);
+
+        int[] originalIndex = new int[n];
+        int k = 0;
+        for (long key : keys) {
+            int cell;
+            if (dimensions == 3) {
+                cell = compact3(key) + mx * (compact3(key >>> 1) + my * compact3(key >>> 2));
+            } else if (curve == Curve.HILBERT) {
+                long xy = hilbertCell(key, side);
+                cell = (int) (xy >>> 32) + mx * (int) xy;
+            } else {
+                cell = compact2(key) + mx * compact2(key >>> 1);
+            }
+            for (int a = cellStart[cell]; a < cellStart[cell + 1]; a++) {
+                originalIndex[k++] = members[a];
+            }
+        }
+
+        double[] radius = particles.getRadius();
+        double[] sx = new double[n];
+        double[] sy = new double[n];
+        double[] sz = z == null ? null : new double[n];
+        double[] sr = new double[n];
+        for (k = 0; k < n; k++) {
+            int i = originalIndex[k];
+            sx[k] = x[i];
+            sy[k] = y[i];
+            if (sz != null) sz[k] = z[i];
+            sr[k] = radius[i];
+        }
+        return new ParticleOrdering(new ParticleArrays(sx, sy, sz, sr), originalIndex);
+    }
+
+    // Interleaves the bits of x and y, x in the even bits
+    static long morton(int x, int y) {
+        return spread2(x) | spread2(y) << 1;
+    }
+
+    // Interleaves the bits of x, y and z; each coordinate may use up to 21 bits
+    static long morton(int x, int y, int z) {
+        return spread3(x) | spread3(y) << 1 | spread3(z) << 2;
+    }
+
+    private static long spread2(int value) {
+        long v = value & 0xFFFFFFFFL;
+        v = (v | v << 16) & 0x0000FFFF0000FFFFL;
+        v = (v | v << 8) & 0x00FF00FF00FF00FFL;
+        v = (v | v << 4) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | v << 2) & 0x3333333333333333L;
+        v = (v | v << 1) & 0x5555555555555555L;
+        return v;
+    }
+
+    private static int compact2(long v) {
+        v &= 0x5555555555555555L;
+        v = (v | v >>> 1) & 0x3333333333333333L;
+        v = (v | v >>> 2) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | v >>> 4) & 0x00FF00FF00FF00FFL;
+        v = (v | v >>> 8) & 0x0000FFFF0000FFFFL;
+        v = (v | v >>> 16) & 0xFFFFFFFFL;
+        return (int) v;
+    }
+
+    private static long spread3(int value) {
+        long v = value & 0x1FFFFFL;
+        v = (v | v << 32) & 0x001F00000000FFFFL;
+        v = (v | v << 16) & 0x001F0000FF0000FFL;
+        v = (v | v << 8) & 0x100F00F00F00F00FL;
+        v = (v | v << 4) & 0x10C30C30C30C30C3L;
+        v = (v | v << 2) & 0x1249249249249249L;
+        return v;
+    }
+
+    private static int compact3(long v) {
+        v &= 0x1249249249249249L;
+        v = (v | v >>> 2) & 0x10C30C30C30C30C3L;
+        v = (v | v >>> 4) & 0x100F00F00F00F00FL;
+        v = (v | v >>> 8) & 0x001F0000FF0000FFL;
+        v = (v | v >>> 16) & 0x001F00000000FFFFL;
+        v = (v | v >>> 32) & 0x1FFFFFL;
+        return (int) v;
+    }
+
+    /**
+     * Position of cell (x, y) along the Hilbert curve that fills a side x side grid, side a power of two.
+     */
+    static long hilbert(int x, int y, int side) {
+        long d = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            // Rotate the quadrant so the sub-curve starts and ends where the parent expects
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
+                }
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+        }
+        return d;
+    }
+
+    // Inverse of hilbert: x in the high 32 bits, y in the low 32
+    static long hilbertCell(long d, int side) {
+        int x = 0;
+        int y = 0;
+        for (int s = 1; s < side; s *= 2) {
+            int rx = (int) (1 & d / 2);
+            int ry = (int) (1 & (d ^ rx));
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+            x += s * rx;
+            y += s * ry;
+            d /= 4;
+        }
+        return (long) x << 32 | y;
+    }
+
+    public ParticleArrays getParticles() {
+        return particles;
+    }
+
+    public int[] getOriginalIndex() {
+        return originalIndex;
+    }
+
+    /**
+     * Particles in curve order, each with the id it has in the input files.
+     */
+    public List<Particle> toParticleList() {
+        List<Particle> list = new ArrayList<>(particles.size());
+        double[] z = particles.getZ();
+        for (int k = 0; k < particles.size(); k++) {
+            list.add(new Particle(particles.getX()[k], particles.getY()[k], z == null ? 0 : z[k], originalIndex[k] + 1, particles.getRadius()[k]));
+        }
+        return list;
+    }
+
+    /**
+     * Neighbor lists of the reordered particles renumbered to file order, sorted as fromPairs leaves them.
+     */
+    public NeighborList restore(NeighborList reordered) {
+        int n = reordered.size();
+        int[] offsets = reordered.getOffsets();
+        int[] indices = reordered.getIndices();
+        int[] restoredOffsets = new int[n + 1];
+        for (int k = 0; k < n; k++) {
+            restoredOffsets[originalIndex[k] + 1] = reordered.neighborCount(k);
+        }
+        for (int i = 0; i < n; i++) {
+            restoredOffsets[i + 1] += restoredOffsets[i];
+        }
+        int[] restoredIndices = new int[indices.length];
+        for (int k = 0; k < n; k++) {
+            int at = restoredOffsets[originalIndex[k]];
+            for (int e = offsets[k]; e < offsets[k + 1]; e++) {
+                restoredIndices[at++] = originalIndex[indices[e]];
+            }
+            Arrays.sort(restoredIndices, restoredOffsets[originalIndex[k]], at);
+        }
+        return new NeighborList(restoredOffsets, restoredIndices);
+    }
+}
@@ -0,0 +1,150 @@
+import com.sun.management.ThreadMXBean;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Optional instrumentation of a run: wall time and bytes allocated per phase, the cell occupancy
+ * histogram of the last grid built and candidate vs accepted pairs, written out as JSON.
+ * Engines only touch it at phase boundaries and skip it when it is null, so a run without stats pays
+ * one null check per phase and nothing per pair.
+ * Every moment belongs to exactly one phase: Main's phases follow each other, and an engine's phases
+ * are nested under the one it runs in (arrays.binning, arrays.search...) with the parent paused
+ * meanwhile, so the phase times add up to the run's wall time.
+ * Allocation is the total of all Java threads, so pool workers of the parallel engines are included.
+ */
+public class SearchStats {
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, String> run = new LinkedHashMap<>();
+    private final List<String> phaseNames = new ArrayList<>();
+    private final List<long[]> phaseTotals = new ArrayList<>(); // {nanos, bytes}
+    private final long runStart = System.nanoTime();
+    private final Deque<String> parents = new ArrayDeque<>(); // "" for the top level
+    private String current;
+    private long phaseStart;
+    private long bytesStart;
+    private long[] occupancyHistogram;
+    private long candidatePairs = -1;
+    private long acceptedPairs = -1;
+
+    /**
+     * Starts phase name at the current level, ending the one in progress. A phase started more than once adds up.
+     */
+    public void begin(String name) {
+        String parent = parents.isEmpty() ? "" : parents.peek();
+        switchTo(parent.isEmpty() ? name : parent + "." + name);
+    }
+
+    /**
+     * Starts phase name nested under the one in progress, which is paused until exit.
+     */
+    public void enter(String name) {
+        String parent = current == null ? "" : current;
+        parents.push(parent);
+        switchTo(parent.isEmpty() ? name : parent + "." + name);
+    }
+
+    // Ends the nested phase and resumes the one enter paused
+    public void exit() {
+        String parent = parents.pop();
+        switchTo(parent.isEmpty() ? null : parent);
+    }
+
+    // One reading of the clock and the allocation counter ends a phase and starts the next, so no time falls between them
+    private void switchTo(String name) {
+        long now = System.nanoTime();
+        long bytes = allocatedBytes();
+        if (current != null) {
+            int index = phaseNames.indexOf(current);
+            if (index < 0) {
+                phaseNames.add(current);
+                phaseTotals.add(new long[]{now - phaseStart, bytes - bytesStart});
+            } else {
+                phaseTotals.get(index)[0] += now - phaseStart;
+                phaseTotals.get(index)[1] += bytes - bytesStart;
+            }
+        }
+        current = name;
+        phaseStart = now;
+        bytesStart = bytes;
+    }
+
+    private long allocatedBytes() {
+        return threads.isThreadAllocatedMemoryEnabled() ? threads.getTotalThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * Histogram of particles per cell from the counting sort boundaries (cell c holds
+     * cellStart[c + 1] - cellStart[c] particles): entry k is the number of cells with k particles.
+     */
+    public void recordOccupancy(int[] cellStart) {
+        int max = 0;
+        for (int c = 0; c + 1 < cellStart.length; c++) {
+            max = Math.max(max, cellStart[c + 1] - cellStart[c]);
+        }
+        long[] histogram = new long[max + 1];
+        for (int c = 0; c + 1 < cellStart.length; c++) {
+            histogram[cellStart[c + 1] - cellStart[c]]++;
+        }
+        occupancyHistogram = histogram;
+    }
+
+    public void recordPairs(long candidates, long accepted) {
+        candidatePairs = candidates;
+        acceptedPairs = accepted;
+    }
+
+    // Free-form run description (engine, grid...), written first
+    public void put(String key, Object value) {
+        run.put(key, value instanceof Number ? value.toString() : "\"" + value + "\"");
+    }
+
+    public String toJson() {
+        switchTo(null);
+        StringBuilder json = new StringBuilder("{\n");
+        run.forEach((key, value) -> json.append("  \"").append(key).append("\": ").append(value).append(",\n"));
+        json.append(String.format(Locale.ROOT, "  \"total_ms\": %.3f,%n", (System.nanoTime() - runStart) / 1e6));
+
+        json.append("  \"phases\": [");
+        for (int p = 0; p < phaseNames.size(); p++) {
+            long[] totals = phaseTotals.get(p);
+            json.append(p == 0 ? "\n" : ",\n").append(String.format(Locale.ROOT,
+                    "    {\"name\": \"%s\", \"ms\": %.3f, \"allocated_bytes\": %d}", phaseNames.get(p), totals[0] / 1e6, totals[1]));
+        }
+        json.append(phaseNames.isEmpty() ? "],\n" : "\n  ],\n");
+
+        if (candidatePairs >= 0) {
+            json.append(String.format(Locale.ROOT, "  \"pairs\": {\"candidates\": %d, \"accepted\": %d, \"acceptance\": %.6f},%n",
+                    candidatePairs, acceptedPairs, candidatePairs == 0 ? 0 : (double) acceptedPairs / candidatePairs));
+        }
+
+        if (occupancyHistogram == null) {
+            json.append("  \"occupancy\": null\n");
+        } else {
+            long cells = 0;
+            long particles = 0;
+            StringBuilder histogram = new StringBuilder();
+            for (int k = 0; k < occupancyHistogram.length; k++) {
+                cells += occupancyHistogram[k];
+                particles += k * occupancyHistogram[k];
+                histogram.append(k == 0 ? "" : ", ").append(occupancyHistogram[k]);
+            }
+            json.append(String.format(Locale.ROOT, "  \"occupancy\": {\"cells\": %d, \"empty\": %d, \"max\": %d, \"mean\": %.4f, \"histogram\": [%s]}%n",
+                    cells, occupancyHistogram[0], occupancyHistogram.length - 1, (double) particles / cells, histogram));
+        }
+        return json.append("}\n").toString();
+    }
+
+    public void writeJson(Path path) throws IOException {
+        Files.writeString(path, toJson());
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Verlet lists on top of the CIM: candidates are searched with Rc + skin and reused while no particle
+ * has moved more than skin/2 since the last build, since until then no pair outside the candidates can
+ * be within Rc. Every call filters the candidates with the exact Rc test.
+ */
+public class VerletNeighborList {
+    private final double l;
+    private final double rc;
+    private final double skin;
+    private final boolean periodic;
+    private final DistanceKernel exactTest;
+    private NeighborList candidates;
+    private double[] referenceX;
+    private double[] referenceY;
+    private int buildM;
+
+    private long steps;
+    private long builds;
+    private long candidatePairs;
+    private long acceptedPairs;
+
+    public VerletNeighborList(double l, double rc, double skin, boolean periodic) {
+        this.l = l;
+        this.rc = rc;
+        this.skin = skin;
+        this.periodic = periodic;
+        this.exactTest = new DistanceKernel(l, rc, periodic);
+    }
+
+    public NeighborList findNeighbors(ParticleArrays particles) {
+        steps++;
+        if (candidates == null || candidates.size() != particles.size() || maxDisplacementSquared(particles) > skin * skin / 4) {
+            build(particles);
+        }
+
+        int n = particles.size();
+        int[] offsets = candidates.getOffsets();
+        int[] indices = candidates.getIndices();
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] r = particles.getRadius();
+        PairBuffer pairs = new PairBuffer(n);
+        for (int i = 0; i < n; i++) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                int j = indices[k];
+                if (j > i && exactTest.isNeighbor(x[i], y[i], r[i], x[j], y[j], r[j])) pairs.add(i, j);
+            }
+        }
+        candidatePairs += candidates.getPairCount();
+        acceptedPairs += pairs.size();
+        return NeighborList.fromPairs(n, pairs);
+    }
+
+    private void build(ParticleArrays particles) {
+        double reach = rc + skin;
+        buildM = GridSizer.optimalM(particles.size(), l, reach, particles.getMaxRadius(), periodic);
+        candidates = new CellIndexMethod(buildM, l, reach, periodic).findNeighbors(particles);
+        referenceX = particles.getX().clone();
+        referenceY = particles.getY().clone();
+        builds++;
+    }
+
+    private double maxDisplacementSquared(ParticleArrays particles) {
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double max = 0;
+        for (int i = 0; i < x.length; i++) {
+            double dx = x[i] - referenceX[i];
+            double dy = y[i] - referenceY[i];
+            if (periodic) {
+                dx -= l * Math.rint(dx / l);
+                dy -= l * Math.rint(dy / l);
+            }
+            max = Math.max(max, dx * dx + dy * dy);
+        }
+        return max;
+    }
+
+    public long getBuilds() {
+        return builds;
+    }
+
+    public double getRebuildFrequency() {
+        return steps == 0 ? 0 : (double) builds / steps;
+    }
+
+    /**
+     * Candidate pairs examined per accepted pair; 1 means the skin costs nothing.
+     */
+    public double getCandidateOverhead() {
+        return acceptedPairs == 0 ? 0 : (double) candidatePairs / acceptedPairs;
+    }
+
+    public int getBuildM() {
+        return buildM;
+    }
+}
@@ -0,0 +1,66 @@
+import numpy as np
+
+# Layout written by NeighborListWriter.writeBinary (little endian):
+# int32 magic "TP1N" | int32 version | int64 n | int64 nnz | int64 offsets[n+1] | int32 indices[nnz]
+MAGIC = b"TP1N"
+HEADER_BYTES = 24
+
+
+def load_csr(file_path):
+    """Memory-map a binary neighbors file and return (offsets, indices) with 0-based particle indices."""
+    header = np.memmap(file_path, dtype=np.uint8, mode='r', shape=(HEADER_BYTES,))
+    if bytes(header[:4]) != MAGIC:
+        raise ValueError(f"{file_path} is not a binary neighbors file")
+    version, = np.frombuffer(header[4:8], dtype='<i4')
+    if version != 1:
+        raise ValueError(f"Unsupported binary neighbors version {version}")
+    n, nnz = np.frombuffer(header[8:24], dtype='<i8')
+    offsets = np.memmap(file_path, dtype='<i8', mode='r', offset=HEADER_BYTES, shape=(n + 1,))
+    indices = np.memmap(file_path, dtype='<i4', mode='r', offset=HEADER_BYTES + 8 * (n + 1), shape=(nnz,))
+    return offsets, indices
+
+
+def neighbors_of(offsets, indices, particle_id):
+    """Neighbor ids (1-based) of the given particle id."""
+    i = particle_id - 1
+    return (indices[offsets[i]:offsets[i + 1]] + 1).tolist()
+
+
+class MappedNeighbors:
+    """Stands in for the dict the text readers build (particle id -> list of neighbor ids), but only
+    reads from the mapped file the lists that are asked for."""
+
+    def __init__(self, file_path):
+        self.offsets, self.indices = load_csr(file_path)
+
+    def __len__(self):
+        return len(self.offsets) - 1
+
+    def get(self, particle_id, default=None):
+        if not 1 <= particle_id <= len(self):
+            return default
+        return neighbors_of(self.offsets, self.indices, particle_id)
+
+
+# Layout of MappedNeighborStore (little endian):
+# int32 magic "TP1S" | int32 version | int64 n | int64 nnz | int32 dimensions | int32 reserved
+# | float64 x[n] | float64 y[n] | float64 z[n] (3D only) | float64 radius[n] | int64 offsets[n+1] | int32 indices[nnz]
+STORE_MAGIC = b"TP1S"
+STORE_HEADER_BYTES = 32
+
+
+def load_store(file_path):
+    """Memory-map a neighbor store and return (positions, radius, offsets, indices); positions has one column per axis."""
+    header = np.memmap(file_path, dtype=np.uint8, mode='r', shape=(STORE_HEADER_BYTES,))
+    if bytes(header[:4]) != STORE_MAGIC:
+        raise ValueError(f"{file_path} is not a neighbor store")
+    version, = np.frombuffer(header[4:8], dtype='<i4')
+    if version != 1:
+        raise ValueError(f"Unsupported neighbor store version {version}")
+    n, nnz = np.frombuffer(header[8:24], dtype='<i8')
+    dimensions, = np.frombuffer(header[24:28], dtype='<i4')
+    columns = np.memmap(file_path, dtype='<f8', mode='r', offset=STORE_HEADER_BYTES, shape=(dimensions + 1, n))
+    offsets_start = STORE_HEADER_BYTES + 8 * (dimensions + 1) * n
+    offsets = np.memmap(file_path, dtype='<i8', mode='r', offset=offsets_start, shape=(n + 1,))
+    indices = np.memmap(file_path, dtype='<i4', mode='r', offset=offsets_start + 8 * (n + 1), shape=(nnz,))
+    return columns[:dimensions].T, columns[dimensions], offsets, indices
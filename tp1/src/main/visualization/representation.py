@@ -6,9 +6,12 @@ import matplotlib.pyplot as plt
 import matplotlib.patches as patches
 import argparse
 import os
+from neighbors_binary import MappedNeighbors
 
 def read_neighbors_file(file_path):
-    """Read the neighbors file and return a dictionary mapping particle IDs to neighbor IDs."""
+    """Read the neighbors file and return a dictionary mapping particle IDs to neighbor IDs (a MappedNeighbors for .bin files)."""
+    if file_path.endswith('.bin'):
+        return MappedNeighbors(file_path)
     neighbors = {}
     with open(file_path, 'r') as f:
         for i, line in enumerate(f, 1):  # Particle IDs start from 1
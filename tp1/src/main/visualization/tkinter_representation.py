@@ -8,6 +8,7 @@ from matplotlib.figure import Figure
 import matplotlib.patches as patches
 import matplotlib.pyplot as plt
 import os
+from neighbors_binary import MappedNeighbors
 
 class ParticleGridApp:
     def __init__(self, root):
@@ -195,6 +196,9 @@ class ParticleGridApp:
     def read_neighbors_file(self, file_path):
         neighbors = {}
         try:
+            if file_path.endswith('.bin'):
+                return MappedNeighbors(file_path)
+
             with open(file_path, 'r') as f:
                 for line in f:
                     line = line.strip()
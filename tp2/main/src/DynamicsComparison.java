@@ -0,0 +1,62 @@
+import java.util.Locale;
+
+/**
+ * Compara la magnetización estacionaria de la dinámica secuencial aleatoria con la de tablero
+ * (CheckerboardUpdater). Para cada p corre varias réplicas independientes de cada dinámica, descarta el
+ * transitorio y promedia |M| en el tiempo; el error es el error estándar entre réplicas. z es la
+ * diferencia de las medias en unidades del error combinado: |z| < 2 es compatible con que ambas
+ * dinámicas tengan el mismo estado estacionario.
+ * Uso: java DynamicsComparison N pasos transitorio réplicas hilos p1 [p2 ...]
+ */
+public class DynamicsComparison {
+    private static final long SEED = 20250510L;
+
+    public static void main(String[] args) {
+        if (args.length < 6) {
+            System.out.println("Uso: java DynamicsComparison <N> <pasos> <transitorio> <réplicas> <hilos> <p1> [p2 ...]");
+            System.exit(1);
+        }
+        int N = Integer.parseInt(args[0]);
+        int steps = Integer.parseInt(args[1]);
+        int transientSteps = Integer.parseInt(args[2]);
+        int replicas = Integer.parseInt(args[3]);
+        int threads = Integer.parseInt(args[4]);
+
+        System.out.println("p\t<|M|> random\terror\tms\t<|M|> checkerboard\terror\tms\tz");
+        for (int a = 5; a < args.length; a++) {
+            double p = Double.parseDouble(args[a]);
+            double[] random = measure(N, p, "random", threads, steps, transientSteps, replicas);
+            double[] checkerboard = measure(N, p, "checkerboard", threads, steps, transientSteps, replicas);
+            double z = (checkerboard[0] - random[0]) / Math.sqrt(random[1] * random[1] + checkerboard[1] * checkerboard[1]);
+            System.out.println(String.format(Locale.ROOT, "%.4f\t%.5f\t%.5f\t%.0f\t%.5f\t%.5f\t%.0f\t%.2f",
+                    p, random[0], random[1], random[2], checkerboard[0], checkerboard[1], checkerboard[2], z));
+        }
+    }
+
+    // {media de |M| entre réplicas, error estándar, milisegundos por réplica}
+    private static double[] measure(int N, double p, String dynamics, int threads, int steps, int transientSteps, int replicas) {
+        double[] means = new double[replicas];
+        long start = System.nanoTime();
+        for (int r = 0; r < replicas; r++) {
+            MetropolisMonteCarloC simulation = new MetropolisMonteCarloC(N, p, dynamics, threads, SEED + r);
+            double sum = 0;
+            for (double m : simulation.sampleMagnetization(transientSteps, steps)) {
+                sum += m;
+            }
+            means[r] = sum / steps;
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / replicas;
+
+        double mean = 0;
+        for (double m : means) {
+            mean += m;
+        }
+        mean /= replicas;
+        double variance = 0;
+        for (double m : means) {
+            variance += (m - mean) * (m - mean);
+        }
+        variance /= Math.max(1, replicas - 1);
+        return new double[]{mean, Math.sqrt(variance / replicas), millis};
+    }
+}
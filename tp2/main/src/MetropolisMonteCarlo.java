@@ -6,13 +6,33 @@ public class MetropolisMonteCarlo {
     private int N; // Tamaño de la grilla NxN
     private double p; // Probabilidad de cambiar de opinión
     private Random random;
-    private FileWriter outputFile;
+    private Writer outputFile; // Con snapshotFormat=text
+    private SnapshotWriter snapshots; // Con snapshotFormat=binary
+    private String snapshotFormat = "text"; // Formato de los estados de la grilla: "text" o "binary" (ver SnapshotWriter)
+    private int snapshotEvery = 1; // Pasos de Monte Carlo entre estados guardados
+    private String dynamics; // "random" (secuencial aleatoria), "checkerboard" o "multispin"
+    private int threads; // Hilos de la dinámica checkerboard
+    private CheckerboardUpdater checkerboard; // null en la secuencial aleatoria
+    private PackedLattice packed; // Solo en multispin; grid se actualiza desde acá cuando se escribe
+    private Observables observables; // Magnetización y demás, al día sin recorrer la grilla
 
     public MetropolisMonteCarlo(String configFilePath) {
         loadConfiguration(configFilePath);
-        grid = new int[N][N];
         random = new Random(123456);
+        setUp();
+    }
+
+    private void setUp() {
+        grid = new int[N][N];
         initializeGrid();
+        observables = new Observables(grid);
+        if (dynamics.equals("checkerboard")) {
+            checkerboard = new CheckerboardUpdater(grid, p, random.nextLong(), threads, observables);
+        } else if (dynamics.equals("multispin")) {
+            packed = new PackedLattice(grid, p, random.nextLong(), observables);
+        } else if (!dynamics.equals("random")) {
+            throw new IllegalArgumentException("Dinámica desconocida: " + dynamics);
+        }
     }
 
     private void loadConfiguration(String configFilePath) {
@@ -21,7 +41,11 @@ public class MetropolisMonteCarlo {
             properties.load(fis);
             N = Integer.parseInt(properties.getProperty("N"));
             p = Double.parseDouble(properties.getProperty("p"));
-            System.out.println("Configuración cargada: N=" + N + ", p=" + p);
+            dynamics = properties.getProperty("dynamics", "random");
+            threads = Integer.parseInt(properties.getProperty("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+            snapshotFormat = properties.getProperty("snapshotFormat", snapshotFormat);
+            snapshotEvery = Integer.parseInt(properties.getProperty("snapshotEvery", String.valueOf(snapshotEvery)));
+            System.out.println("Configuración cargada: N=" + N + ", p=" + p + ", dinámica=" + dynamics);
         } catch (IOException e) {
             System.err.println("Error al cargar el archivo de configuración: " + e.getMessage());
             System.exit(1);
@@ -39,7 +63,7 @@ public class MetropolisMonteCarlo {
 
     public void runSimulation(int monteCarloSteps, String outputFilePath) {
         try {
-            outputFile = new FileWriter(outputFilePath);
+            openGridOutput(outputFilePath);
             List<Double> magnetizationHistory = new ArrayList<>();
 
             // Escribir estado inicial
@@ -50,7 +74,9 @@ public class MetropolisMonteCarlo {
             // Ejecutar la simulación
             for (int mcs = 1; mcs <= monteCarloSteps; mcs++) {
                 performMonteCarloStep();
-                writeGridState(mcs);
+                if (mcs % snapshotEvery == 0) {
+                    writeGridState(mcs);
+                }
 
                 // Calcular magnetización
                 mag = calculateMagnetization();
@@ -64,18 +90,33 @@ public class MetropolisMonteCarlo {
             }
             magFile.close();
 
-            outputFile.close();
+            closeGridOutput();
             System.out.println("Simulación completada. Resultados guardados en " + outputFilePath);
 
         } catch (IOException e) {
             System.err.println("Error al escribir en el archivo de salida: " + e.getMessage());
             System.exit(1);
+        } finally {
+            if (checkerboard != null) checkerboard.shutdown();
         }
     }
 
     private void performMonteCarloStep() {
+        if (checkerboard != null) {
+            checkerboard.sweep();
+            return;
+        }
+        if (packed != null) {
+            packed.sweep();
+            return;
+        }
+
         // Un paso de Monte Carlo consiste en N² intentos de actualización
         int totalSites = N * N;
+        // Cambios del paso, para Observables
+        long changes = 0;
+        long spinSumDelta = 0;
+        long bondsDelta = 0;
 
         for (int attempt = 0; attempt < totalSites; attempt++) {
             // Elegir un sitio (i,j) al azar
@@ -84,25 +125,35 @@ public class MetropolisMonteCarlo {
 
             // Calcular el signo de la suma de los 4 vecinos
             int sumNeighbors = getNeighborSum(i, j);
-            int majorityOpinion;
-
-            if (sumNeighbors != 0) {
-                majorityOpinion = sumNeighbors > 0 ? 1 : -1;
-            } else {
-                majorityOpinion = grid[i][j]; // En caso de empate, la opinión de la mayoría es la del sitio
-            }
 
             // Decidir si cambiar o no el estado del sitio
             double randomProb = random.nextDouble();
-
-            if (randomProb < p) {
-                // Con probabilidad p, cambiar el estado del sitio
-                grid[i][j] = -grid[i][j];
-            } else {
-                // Con probabilidad 1-p, adoptar el estado de la mayoría
-                grid[i][j] = majorityOpinion;
+            int opinion = grid[i][j];
+            int updated = updatedOpinion(opinion, sumNeighbors, randomProb < p);
+            if (updated != opinion) {
+                grid[i][j] = updated;
+                changes++;
+                spinSumDelta -= 2 * opinion;
+                bondsDelta += opinion * sumNeighbors;
             }
         }
+        observables.recordSweep(totalSites, changes, spinSumDelta, bondsDelta);
+    }
+
+    /**
+     * Regla de actualización de un sitio: si flip (probabilidad p) cambia de opinión, si no adopta la
+     * de la mayoría de sus vecinos. PackedLattice la usa como referencia.
+     */
+    static int updatedOpinion(int opinion, int sumNeighbors, boolean flip) {
+        if (flip) {
+            // Con probabilidad p, cambiar el estado del sitio
+            return -opinion;
+        }
+        if (sumNeighbors != 0) {
+            // Con probabilidad 1-p, adoptar el estado de la mayoría
+            return sumNeighbors > 0 ? 1 : -1;
+        }
+        return opinion; // En caso de empate, la opinión de la mayoría es la del sitio
     }
 
     private int getNeighborSum(int i, int j) {
@@ -125,16 +176,42 @@ public class MetropolisMonteCarlo {
     }
 
     private double calculateMagnetization() {
-        double sum = 0;
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < N; j++) {
-                sum += grid[i][j];
-            }
+        return observables.getMagnetization();
+    }
+
+    public Observables getObservables() {
+        return observables;
+    }
+
+    // Extensión del archivo de estados según el formato
+    public String getSnapshotExtension() {
+        return snapshotFormat.equals("binary") ? ".snap" : ".txt";
+    }
+
+    private void openGridOutput(String outputFilePath) throws IOException {
+        if (snapshotEvery < 1) {
+            throw new IllegalArgumentException("snapshotEvery tiene que ser al menos 1: " + snapshotEvery);
+        }
+        if (snapshotFormat.equals("binary")) {
+            snapshots = new SnapshotWriter(outputFilePath, N, snapshotEvery);
+        } else if (snapshotFormat.equals("text")) {
+            outputFile = new BufferedWriter(new FileWriter(outputFilePath));
+        } else {
+            throw new IllegalArgumentException("Formato de estados desconocido: " + snapshotFormat);
         }
-        return Math.abs(sum / (N * N));
+    }
+
+    private void closeGridOutput() throws IOException {
+        if (outputFile != null) outputFile.close();
+        if (snapshots != null) snapshots.close();
     }
 
     private void writeGridState(int mcs) throws IOException {
+        if (packed != null) packed.unpack(grid);
+        if (snapshots != null) {
+            snapshots.write(mcs, grid);
+            return;
+        }
         outputFile.write("MCS=" + mcs + "\n");
         for (int i = 0; i < N; i++) {
             for (int j = 0; j < N; j++) {
@@ -153,9 +230,9 @@ public class MetropolisMonteCarlo {
 
         String configFile = args[0];
         int monteCarloSteps = Integer.parseInt(args[1]);
-        String outputFile = "resultados_simulacion.txt";
-
         MetropolisMonteCarlo simulation = new MetropolisMonteCarlo(configFile);
+        String outputFile = "resultados_simulacion" + simulation.getSnapshotExtension();
+
         simulation.runSimulation(monteCarloSteps, outputFile);
     }
 }
\ No newline at end of file
@@ -8,13 +8,42 @@ public class MetropolisMonteCarloC {
     private int N; // Tamaño de la grilla NxN
     private double p; // Probabilidad de cambiar de opinión
     private Random random;
-    private FileWriter outputFile;
+    private Writer outputFile; // Con snapshotFormat=text
+    private SnapshotWriter snapshots; // Con snapshotFormat=binary
+    private String snapshotFormat = "text"; // Formato de los estados de la grilla: "text" o "binary" (ver SnapshotWriter)
+    private int snapshotEvery = 10; // Pasos de Monte Carlo entre estados guardados
+    private String dynamics; // "random" (secuencial aleatoria), "checkerboard" o "multispin"
+    private int threads; // Hilos de la dinámica checkerboard
+    private CheckerboardUpdater checkerboard; // null en la secuencial aleatoria
+    private PackedLattice packed; // Solo en multispin; grid se actualiza desde acá cuando se escribe
+    private Observables observables; // Magnetización y demás, al día sin recorrer la grilla
 
     public MetropolisMonteCarloC(String configFilePath) {
         loadConfiguration(configFilePath);
-        grid = new int[N][N];
         random = new Random(12345);
+        setUp();
+    }
+
+    public MetropolisMonteCarloC(int N, double p, String dynamics, int threads, long seed) {
+        this.N = N;
+        this.p = p;
+        this.dynamics = dynamics;
+        this.threads = threads;
+        random = new Random(seed);
+        setUp();
+    }
+
+    private void setUp() {
+        grid = new int[N][N];
         initializeGrid();
+        observables = new Observables(grid);
+        if (dynamics.equals("checkerboard")) {
+            checkerboard = new CheckerboardUpdater(grid, p, random.nextLong(), threads, observables);
+        } else if (dynamics.equals("multispin")) {
+            packed = new PackedLattice(grid, p, random.nextLong(), observables);
+        } else if (!dynamics.equals("random")) {
+            throw new IllegalArgumentException("Dinámica desconocida: " + dynamics);
+        }
     }
 
     private void loadConfiguration(String configFilePath) {
@@ -23,7 +52,11 @@ public class MetropolisMonteCarloC {
             properties.load(fis);
             N = Integer.parseInt(properties.getProperty("N"));
             p = Double.parseDouble(properties.getProperty("p"));
-            System.out.println("Configuración cargada: N=" + N + ", p=" + p);
+            dynamics = properties.getProperty("dynamics", "random");
+            threads = Integer.parseInt(properties.getProperty("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+            snapshotFormat = properties.getProperty("snapshotFormat", snapshotFormat);
+            snapshotEvery = Integer.parseInt(properties.getProperty("snapshotEvery", String.valueOf(snapshotEvery)));
+            System.out.println("Configuración cargada: N=" + N + ", p=" + p + ", dinámica=" + dynamics);
         } catch (IOException e) {
             System.err.println("Error al cargar el archivo de configuración: " + e.getMessage());
             System.exit(1);
@@ -41,7 +74,22 @@ public class MetropolisMonteCarloC {
 
     public void runSimulation(int monteCarloSteps, String outputFilePath) {
         try {
-            outputFile = new FileWriter(outputFilePath);
+            runSimulation(monteCarloSteps, outputFilePath, "magnetizacion.txt");
+            System.out.println("Simulación completada. Resultados guardados en " + outputFilePath);
+        } catch (IOException e) {
+            System.err.println("Error al escribir en el archivo de salida: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Corre la simulación con la grilla en outputFilePath y el historial de magnetización en
+     * magnetizationFilePath. Ante un error lanza la excepción en lugar de terminar el proceso, así varias
+     * simulaciones pueden correr a la vez (ver SweepScheduler).
+     */
+    public void runSimulation(int monteCarloSteps, String outputFilePath, String magnetizationFilePath) throws IOException {
+        try {
+            openGridOutput(outputFilePath);
             List<Double> magnetizationHistory = new ArrayList<>();
             List<Double> magnetizationSquaredHistory = new ArrayList<>();
 
@@ -56,7 +104,7 @@ public class MetropolisMonteCarloC {
             for (int mcs = 1; mcs <= monteCarloSteps; mcs++) {
                 performMonteCarloStep();
 
-                if (mcs % 10 == 0) { // Guardar cada 10 pasos para reducir el tamaño del archivo
+                if (mcs % snapshotEvery == 0) { // Por defecto cada 10 pasos para reducir el tamaño del archivo
                     writeGridState(mcs);
                 }
 
@@ -68,26 +116,55 @@ public class MetropolisMonteCarloC {
             }
 
             // Guardar el historial de magnetización y magnetización al cuadrado
-            FileWriter magFile = new FileWriter("magnetizacion.txt");
+            FileWriter magFile = new FileWriter(magnetizationFilePath);
             magFile.write("# MCS\t|M|\tM^2\tStationary\n");
             for (int i = 0; i < magnetizationHistory.size(); i++) {
                 magFile.write(i + "\t" + magnetizationHistory.get(i) + "\t" +
                         magnetizationSquaredHistory.get(i) + "\t" + "\n");
             }
             magFile.close();
+        } finally {
+            closeGridOutput();
+            if (checkerboard != null) checkerboard.shutdown();
+        }
+    }
 
-            outputFile.close();
-            System.out.println("Simulación completada. Resultados guardados en " + outputFilePath);
-
-        } catch (IOException e) {
-            System.err.println("Error al escribir en el archivo de salida: " + e.getMessage());
-            System.exit(1);
+    /**
+     * Corre transientSteps pasos sin medir y devuelve |M| después de cada uno de los steps siguientes,
+     * sin escribir archivos.
+     */
+    public double[] sampleMagnetization(int transientSteps, int steps) {
+        try {
+            for (int mcs = 0; mcs < transientSteps; mcs++) {
+                performMonteCarloStep();
+            }
+            double[] magnetization = new double[steps];
+            for (int mcs = 0; mcs < steps; mcs++) {
+                performMonteCarloStep();
+                magnetization[mcs] = calculateMagnetization();
+            }
+            return magnetization;
+        } finally {
+            if (checkerboard != null) checkerboard.shutdown();
         }
     }
 
     private void performMonteCarloStep() {
+        if (checkerboard != null) {
+            checkerboard.sweep();
+            return;
+        }
+        if (packed != null) {
+            packed.sweep();
+            return;
+        }
+
         // Un paso de Monte Carlo consiste en N² intentos de actualización
         int totalSites = N * N;
+        // Cambios del paso, para Observables
+        long changes = 0;
+        long spinSumDelta = 0;
+        long bondsDelta = 0;
 
         for (int attempt = 0; attempt < totalSites; attempt++) {
             // Elegir un sitio (i,j) al azar
@@ -106,15 +183,25 @@ public class MetropolisMonteCarloC {
 
             // Decidir si cambiar o no el estado del sitio
             double randomProb = random.nextDouble();
+            int opinion = grid[i][j];
+            int updated;
 
             if (randomProb < p) {
                 // Con probabilidad p, cambiar el estado del sitio
-                grid[i][j] = -grid[i][j];
+                updated = -opinion;
             } else {
                 // Con probabilidad 1-p, adoptar el estado de la mayoría
-                grid[i][j] = majorityOpinion;
+                updated = majorityOpinion;
+            }
+
+            if (updated != opinion) {
+                grid[i][j] = updated;
+                changes++;
+                spinSumDelta -= 2 * opinion;
+                bondsDelta += opinion * sumNeighbors;
             }
         }
+        observables.recordSweep(totalSites, changes, spinSumDelta, bondsDelta);
     }
 
     private int getNeighborSum(int i, int j) {
@@ -137,13 +224,22 @@ public class MetropolisMonteCarloC {
     }
 
     private double calculateMagnetization() {
-        double sum = 0;
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < N; j++) {
-                sum += grid[i][j];
-            }
-        }
-        return Math.abs(sum / (N * N));
+        return observables.getMagnetization();
+    }
+
+    public Observables getObservables() {
+        return observables;
+    }
+
+    // Para las simulaciones sin archivo de configuración (ver SweepScheduler); antes de runSimulation
+    public void setSnapshots(String format, int every) {
+        this.snapshotFormat = format;
+        this.snapshotEvery = every;
+    }
+
+    // Extensión del archivo de estados según el formato
+    public String getSnapshotExtension() {
+        return snapshotFormat.equals("binary") ? ".snap" : ".txt";
     }
 
     private double calculateSlope(List<Double> values) {
@@ -167,7 +263,30 @@ public class MetropolisMonteCarloC {
         return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
     }
 
+    private void openGridOutput(String outputFilePath) throws IOException {
+        if (snapshotEvery < 1) {
+            throw new IllegalArgumentException("snapshotEvery tiene que ser al menos 1: " + snapshotEvery);
+        }
+        if (snapshotFormat.equals("binary")) {
+            snapshots = new SnapshotWriter(outputFilePath, N, snapshotEvery);
+        } else if (snapshotFormat.equals("text")) {
+            outputFile = new BufferedWriter(new FileWriter(outputFilePath));
+        } else {
+            throw new IllegalArgumentException("Formato de estados desconocido: " + snapshotFormat);
+        }
+    }
+
+    private void closeGridOutput() throws IOException {
+        if (outputFile != null) outputFile.close();
+        if (snapshots != null) snapshots.close();
+    }
+
     private void writeGridState(int mcs) throws IOException {
+        if (packed != null) packed.unpack(grid);
+        if (snapshots != null) {
+            snapshots.write(mcs, grid);
+            return;
+        }
         outputFile.write("MCS=" + mcs + "\n");
         for (int i = 0; i < N; i++) {
             for (int j = 0; j < N; j++) {
@@ -186,9 +305,9 @@ public class MetropolisMonteCarloC {
 
         String configFile = args[0];
         int monteCarloSteps = Integer.parseInt(args[1]);
-        String outputFile = "resultados_simulacion.txt";
-
         MetropolisMonteCarloC simulation = new MetropolisMonteCarloC(configFile);
+        String outputFile = "resultados_simulacion" + simulation.getSnapshotExtension();
+
         simulation.runSimulation(monteCarloSteps, outputFile);
     }
 }
\ No newline at end of file
@@ -1,65 +1,34 @@
-import java.io.*;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 
 public class MetropolisSimulationRunner {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         // Parámetros de simulación
         int N = 50; // Tamaño de la grilla
         int monteCarloSteps = 30000; // Pasos de Monte Carlo
+        // Dinámica opcional: random (secuencial aleatoria, por defecto), checkerboard (tablero en paralelo)
+        // o multispin (tablero con la grilla empaquetada de a un bit, ver PackedLattice)
+        String dynamics = args.length > 0 ? args[0] : "random";
+        // Réplicas por valor de p (con semillas distintas, para barras de error) y simulaciones a la vez
+        int replicas = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        // Estados de la grilla en texto (por defecto) o en binario comprimido (ver SnapshotWriter), y cada cuántos pasos
+        String snapshotFormat = args.length > 3 ? args[3] : "text";
+        int snapshotEvery = args.length > 4 ? Integer.parseInt(args[4]) : 10;
 
         // Valores de p a simular (con mayor densidad cerca de la transición)
         // La transición crítica ocurre alrededor de p=0.075-0.085 para este modelo
         double[] pValues = {0.05, 0.07, 0.0825, 0.084, 0.0875, 0.093, 0.0945, 0.095, 0.1, 0.105, 0.11, 0.13, 0.15, 0.17, 0.19, 0.21, 0.23};
 
-        // Crear directorio para guardar los resultados
-        File resultsDir = new File("resultados");
-        if (!resultsDir.exists()) {
-            resultsDir.mkdir();
-        }
-
-        // Ejecutar simulaciones para cada valor de p
-        for (double p : pValues) {
-            System.out.println("\n==================================================");
-            System.out.println("Iniciando simulación con p = " + p);
-
-            // Crear archivo de configuración para este valor de p
-            String configFilePath = createConfigFile(N, p);
-
-            // Ejecutar la simulación
-            MetropolisMonteCarloC simulation = new MetropolisMonteCarloC(configFilePath);
-            String outputFilePath = "resultados/resultados_p" + p + ".txt";
-            simulation.runSimulation(monteCarloSteps, outputFilePath);
-
-            // Renombrar el archivo de magnetización
-            File magnetFile = new File("magnetizacion.txt");
-            File newMagnetFile = new File("resultados/magnetizacion_p" + p + ".txt");
-            magnetFile.renameTo(newMagnetFile);
-
-            System.out.println("Simulación completada para p = " + p);
-            System.out.println("==================================================");
-        }
-
-        System.out.println("Todas las simulaciones completadas. Los resultados están en el directorio 'resultados/'");
-    }
-
-    private static String createConfigFile(int N, double p) {
-
-        try {
-            Files.createDirectories(Paths.get("./configs"));
-        } catch (IOException e) {
-            System.err.println("Error al crear el path de configs: " + e.getMessage());
+        // Cada (p, réplica) escribe sus propios archivos en 'resultados/', y las que ya terminaron
+        // en una corrida anterior con los mismos parámetros se saltean
+        SweepScheduler scheduler = new SweepScheduler(N, monteCarloSteps, dynamics, Paths.get("resultados"), parallelism);
+        scheduler.setSnapshots(snapshotFormat, snapshotEvery);
+        int failed = scheduler.run(pValues, replicas);
+        if (failed > 0) {
+            System.err.println(failed + " simulaciones fallaron; volver a correr para completarlas");
             System.exit(1);
         }
 
-        String configFilePath = "./configs/config_p" + p + ".properties";
-        try (FileWriter writer = new FileWriter(configFilePath)) {
-            writer.write("N=" + N + "\n");
-            writer.write("p=" + p + "\n");
-        } catch (IOException e) {
-            System.err.println("Error al crear el archivo de configuración: " + e.getMessage());
-            System.exit(1);
-        }
-        return configFilePath;
+        System.out.println("Todas las simulaciones completadas. Los resultados están en el directorio 'resultados/'");
     }
-}
\ No newline at end of file
+}
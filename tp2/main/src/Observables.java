@@ -0,0 +1,66 @@
+/**
+ * Observables de la grilla que se mantienen al día sin recorrerla: las dinámicas acumulan, mientras
+ * actualizan, cuánto cambió la suma de opiniones y la cantidad de enlaces en desacuerdo y lo informan
+ * una vez por paso con recordSweep. Solo el constructor recorre la grilla.
+ * Si un sitio con opinión s y suma de vecinos S cambia a -s, la suma de opiniones cambia en -2s y los
+ * enlaces en desacuerdo en s * S (pasa de (4 - sS) / 2 a (4 + sS) / 2).
+ */
+public class Observables {
+    private final long sites;
+    private long spinSum;
+    private long disagreeingBonds; // Enlaces entre vecinos con distinta opinión, cada uno contado una vez
+    private long attempts; // Del último paso
+    private long changes; // Del último paso
+
+    public Observables(int[][] grid) {
+        int N = grid.length;
+        this.sites = (long) N * N;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                spinSum += grid[i][j];
+                // Enlace con el vecino de abajo y con el de la derecha, con contorno periódico
+                if (grid[i][j] != grid[(i + 1) % N][j]) disagreeingBonds++;
+                if (grid[i][j] != grid[i][(j + 1) % N]) disagreeingBonds++;
+            }
+        }
+    }
+
+    /**
+     * Cierra un paso de Monte Carlo: attempts sitios visitados, changes de ellos cambiaron de opinión, y
+     * los cambios acumulados de la suma de opiniones y de los enlaces en desacuerdo.
+     */
+    public void recordSweep(long attempts, long changes, long spinSumDelta, long disagreeingBondsDelta) {
+        this.attempts = attempts;
+        this.changes = changes;
+        this.spinSum += spinSumDelta;
+        this.disagreeingBonds += disagreeingBondsDelta;
+    }
+
+    public long getSpinSum() {
+        return spinSum;
+    }
+
+    // |M|, el valor absoluto de la opinión media
+    public double getMagnetization() {
+        return Math.abs((double) spinSum / sites);
+    }
+
+    public double getMagnetizationSquared() {
+        double m = (double) spinSum / sites;
+        return m * m;
+    }
+
+    public long getDisagreeingBonds() {
+        return disagreeingBonds;
+    }
+
+    // Fracción de los 2N² enlaces que están en desacuerdo: 0 con consenso, 1/2 al azar
+    public double getDisagreementFraction() {
+        return disagreeingBonds / (2.0 * sites);
+    }
+
+    // Fracción de los intentos del último paso que cambiaron la opinión del sitio
+    public double getAcceptanceRate() {
+        return attempts == 0 ? 0 : (double) changes / attempts;
+    }
+}
@@ -0,0 +1,247 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Grilla de opiniones empaquetada de a un bit por sitio (1 = +1, 0 = -1): la fila i ocupa los long
+ * bits[i * words .. (i + 1) * words), con la columna j en el bit j % 64 de la palabra j / 64. Ocupa
+ * N² / 8 bytes contra 4 N² (más una indirección por fila) de int[][].
+ * La actualización es la de tablero de CheckerboardUpdater pero de a 64 sitios por vez: los 4 vecinos
+ * de una palabra son la misma palabra de las filas de arriba y abajo y la fila corrida un bit a cada
+ * lado, y la mayoría de 4 bits sale con operaciones lógicas. El ruido también se arma de a 64 sitios:
+ * cada bit de una máscara de Bernoulli(p) compara bit a bit un uniforme con p, y como casi todos los
+ * sitios se deciden en los primeros bits bastan unos pocos long al azar por palabra.
+ * main verifica sitio por sitio contra MetropolisMonteCarlo.updatedOpinion, y los Observables que
+ * lleva contra los de recorrer la grilla.
+ */
+public final class PackedLattice {
+    private static final int DOUBLE_BITS = 53; // Bits de un uniforme de nextDouble
+
+    private final int N;
+    private final int words; // long por fila
+    private final long lastWordMask; // Bits válidos de la última palabra de cada fila
+    private final int lastBit; // Bit de la columna N-1 en la última palabra
+    private final long[] bits;
+    private final long[] noise; // Máscara de Bernoulli(p) del paso actual, mismo formato que bits
+    private final long pBits; // ceil(p * 2^53): nextDouble() < p si y solo si el uniforme entero es menor
+    private final SplittableRandom random;
+    private final Observables observables;
+    // Del paso en curso, para Observables: sitios que cambiaron, y suma de opiniones y enlaces en
+    // desacuerdo contados al terminar cada fila en el último color
+    private long changes;
+    private long spinSum;
+    private long disagreeingBonds;
+
+    public PackedLattice(int[][] grid, double p, long seed, Observables observables) {
+        this.N = grid.length;
+        if (N % 2 != 0) {
+            // Con contorno periódico y N impar la fila 0 y la N-1 tendrían vecinos del mismo color
+            throw new IllegalArgumentException("La grilla empaquetada necesita N par, N=" + N);
+        }
+        this.words = (N + 63) / 64;
+        this.lastBit = (N - 1) % 64;
+        this.lastWordMask = lastBit == 63 ? -1L : (1L << (lastBit + 1)) - 1;
+        this.bits = new long[N * words];
+        this.noise = new long[N * words];
+        this.pBits = (long) Math.ceil(p * (1L << DOUBLE_BITS));
+        this.random = new SplittableRandom(seed);
+        this.observables = observables;
+        pack(grid);
+    }
+
+    public void pack(int[][] grid) {
+        Arrays.fill(bits, 0);
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (grid[i][j] > 0) bits[i * words + j / 64] |= 1L << (j % 64);
+            }
+        }
+    }
+
+    public void unpack(int[][] grid) {
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                grid[i][j] = (bits[i * words + j / 64] >>> (j % 64) & 1) != 0 ? 1 : -1;
+            }
+        }
+    }
+
+    // Un paso de Monte Carlo: los sitios pares usan los bits pares del ruido y los impares los otros
+    public void sweep() {
+        fillNoise();
+        updateColor(0);
+        updateColor(1);
+        recordSweep();
+    }
+
+    void recordSweep() {
+        observables.recordSweep((long) N * N, changes, spinSum - observables.getSpinSum(),
+                disagreeingBonds - observables.getDisagreeingBonds());
+        changes = 0;
+    }
+
+    void fillNoise() {
+        for (int k = 0; k < noise.length; k++) {
+            noise[k] = bernoulli();
+        }
+    }
+
+    /**
+     * 64 bits independientes, cada uno en 1 con probabilidad p. Se comparan de a un bit, desde el más
+     * significativo, un uniforme de 53 bits por sitio con p: un sitio queda decidido en el primer bit
+     * en que difieren, y undecided guarda los que todavía son iguales.
+     */
+    private long bernoulli() {
+        if (pBits >= 1L << DOUBLE_BITS) return -1L;
+        long result = 0;
+        long undecided = -1L;
+        for (int k = DOUBLE_BITS - 1; k >= 0 && undecided != 0; k--) {
+            long r = random.nextLong();
+            if ((pBits >>> k & 1) != 0) {
+                result |= undecided & ~r; // Bit de p en 1 y del uniforme en 0: el uniforme es menor
+                undecided &= r;
+            } else {
+                undecided &= ~r;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Actualiza los sitios con (i + j) % 2 == color usando el ruido actual. Sus vecinos son todos del
+     * otro color, así que se puede escribir en el lugar.
+     * En el color 1 cada fila queda definitiva al terminarla, así que ahí mismo, con la fila todavía en
+     * caché, se cuentan sus +1 y sus enlaces en desacuerdo con bitCount: es más barato que llevar la
+     * diferencia sitio por sitio y no agrega otra pasada por la grilla.
+     */
+    void updateColor(int color) {
+        boolean count = color == 1;
+        if (count) {
+            spinSum = -(long) N * N;
+            disagreeingBonds = 0;
+        }
+        for (int i = 0; i < N; i++) {
+            int row = i * words;
+            int up = (i == 0 ? N - 1 : i - 1) * words;
+            int down = (i == N - 1 ? 0 : i + 1) * words;
+            // 64 es par, así que el color de cada bit no depende de la palabra
+            long colorMask = (i + color) % 2 == 0 ? 0x5555555555555555L : 0xAAAAAAAAAAAAAAAAL;
+            for (int w = 0; w < words; w++) {
+                long a = bits[up + w];
+                long b = bits[down + w];
+                long c = leftNeighbors(row, w);
+                long d = rightNeighbors(row, w);
+                // Al menos 3 vecinos en +1 (suma > 0) o al menos 3 en -1 (suma < 0); con 2 y 2 se queda
+                long plus = (a & b & (c | d)) | (c & d & (a | b));
+                long minus = (~a & ~b & (~c | ~d)) | (~c & ~d & (~a | ~b));
+                long self = bits[row + w];
+                long majority = (self & ~minus) | plus;
+                long flip = noise[row + w];
+                long updated = (flip & ~self) | (~flip & majority); // Con ruido cambia, si no la mayoría
+                long mask = w == words - 1 ? colorMask & lastWordMask : colorMask;
+                long changed = (self ^ updated) & mask;
+                bits[row + w] = self ^ changed;
+                changes += Long.bitCount(changed);
+            }
+            if (count) countRow(i, up);
+        }
+        if (count) {
+            // Enlaces entre la fila 0 y la N-1, que la fila 0 no pudo contar
+            for (int w = 0; w < words; w++) {
+                disagreeingBonds += Long.bitCount(bits[w] ^ bits[(N - 1) * words + w]);
+            }
+        }
+    }
+
+    // Suma 2 por cada +1 de la fila i y cuenta sus enlaces en desacuerdo con la izquierda y, salvo la fila 0, con la de arriba
+    private void countRow(int i, int up) {
+        int row = i * words;
+        for (int w = 0; w < words; w++) {
+            long word = bits[row + w];
+            long valid = w == words - 1 ? lastWordMask : -1L;
+            spinSum += 2L * Long.bitCount(word);
+            disagreeingBonds += Long.bitCount((word ^ leftNeighbors(row, w)) & valid);
+            if (i > 0) disagreeingBonds += Long.bitCount(word ^ bits[up + w]);
+        }
+    }
+
+    // Bit j: opinión de la columna j-1 (la N-1 para j = 0)
+    private long leftNeighbors(int row, int w) {
+        long value = bits[row + w] << 1;
+        if (w > 0) return value | bits[row + w - 1] >>> 63;
+        return value | (bits[row + words - 1] >>> lastBit & 1);
+    }
+
+    // Bit j: opinión de la columna j+1 (la 0 para j = N-1)
+    private long rightNeighbors(int row, int w) {
+        long value = bits[row + w] >>> 1;
+        if (w < words - 1) return value | bits[row + w + 1] << 63;
+        long wrapped = bits[row] & 1;
+        return (value & ~(1L << lastBit)) | wrapped << lastBit;
+    }
+
+    boolean isNoisy(int i, int j) {
+        return (noise[i * words + j / 64] >>> (j % 64) & 1) != 0;
+    }
+
+    /**
+     * Verificación: aplica a una int[][] la regla de MetropolisMonteCarlo sitio por sitio, en el mismo
+     * orden de colores y con el mismo ruido, y la compara con la grilla empaquetada después de cada color.
+     * Uso: java PackedLattice N p pasos [semilla]
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Uso: java PackedLattice <N> <p> <pasos> [semilla]");
+            System.exit(1);
+        }
+        int N = Integer.parseInt(args[0]);
+        double p = Double.parseDouble(args[1]);
+        int steps = Integer.parseInt(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 123456;
+
+        Random random = new Random(seed);
+        int[][] grid = new int[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                grid[i][j] = random.nextBoolean() ? 1 : -1;
+            }
+        }
+        Observables observables = new Observables(grid);
+        PackedLattice lattice = new PackedLattice(grid, p, seed, observables);
+        int[][] packed = new int[N][N];
+        long flips = 0;
+        for (int step = 1; step <= steps; step++) {
+            lattice.fillNoise();
+            for (int color = 0; color < 2; color++) {
+                for (int i = 0; i < N; i++) {
+                    for (int j = (i + color) % 2; j < N; j += 2) {
+                        int sum = grid[(i - 1 + N) % N][j] + grid[(i + 1) % N][j] + grid[i][(j - 1 + N) % N] + grid[i][(j + 1) % N];
+                        boolean flip = lattice.isNoisy(i, j);
+                        if (flip) flips++;
+                        grid[i][j] = MetropolisMonteCarlo.updatedOpinion(grid[i][j], sum, flip);
+                    }
+                }
+                lattice.updateColor(color);
+                lattice.unpack(packed);
+                for (int i = 0; i < N; i++) {
+                    for (int j = 0; j < N; j++) {
+                        if (packed[i][j] != grid[i][j]) {
+                            System.out.println("Diferencia en el paso " + step + ", color " + color + ", sitio (" + i + ", " + j + ")");
+                            System.exit(1);
+                        }
+                    }
+                }
+            }
+            // Los observables llevados por el paso tienen que coincidir con los de recorrer la grilla
+            lattice.recordSweep();
+            Observables recount = new Observables(grid);
+            if (observables.getSpinSum() != recount.getSpinSum() || observables.getDisagreeingBonds() != recount.getDisagreeingBonds()) {
+                System.out.println("Observables distintos en el paso " + step + ": suma " + observables.getSpinSum() + " contra "
+                        + recount.getSpinSum() + ", enlaces en desacuerdo " + observables.getDisagreeingBonds() + " contra " + recount.getDisagreeingBonds());
+                System.exit(1);
+            }
+        }
+        System.out.println("Verificación correcta: " + steps + " pasos de " + N + "x" + N + ", ruido en "
+                + String.format("%.5f", (double) flips / ((double) steps * N * N)) + " de los sitios (p=" + p + ")");
+    }
+}
@@ -0,0 +1,185 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Escribe los estados de la grilla en binario, un bit por sitio (1 = +1, 0 = -1), en lugar del texto
+ * de writeGridState. Todo en little endian:
+ * - Encabezado de 6 int: MAGIC, VERSION, N, cada cuántos pasos se guarda un estado, KEYFRAME_INTERVAL y 0.
+ * - Los estados uno detrás de otro, cada uno en la codificación que ocupe menos: RAW, los N² bits en
+ *   orden de filas (el sitio (i, j) es el bit (i * N + j) % 8 del byte (i * N + j) / 8, como
+ *   np.unpackbits con bitorder='little'); RUNS, los largos de las rachas alternadas de 0 y 1 en ese
+ *   mismo orden, la primera de 0 y posiblemente vacía, cada uno de a 7 bits por byte empezando por los
+ *   bajos y con el bit alto en 1 si sigue otro byte (LEB128); o DELTA, lo mismo pero de los bits que
+ *   cambiaron respecto del estado anterior.
+ * - El índice, una entrada de 24 bytes por estado: offset (int64), largo en bytes, MCS, codificación y
+ *   el último estado no DELTA hasta él (int32), desde donde hay que decodificar para reconstruirlo.
+ * - Al final offset del índice (int64), cantidad de estados y MAGIC (int32).
+ * Cada KEYFRAME_INTERVAL estados uno no usa DELTA, así que leer un estado cualquiera no necesita más
+ * que eso de estados anteriores. snapshots.py lo lee con numpy.memmap.
+ * En el estacionario cambia una fracción chica de los sitios por paso y las rachas quedan largas, por
+ * eso DELTA o RUNS suelen ocupar mucho menos que los N² / 8 bytes de RAW, que a su vez son unas 20
+ * veces menos que el texto.
+ */
+public class SnapshotWriter implements AutoCloseable {
+    static final int MAGIC = 0x47325054; // "TP2G"
+    static final int VERSION = 1;
+    static final int KEYFRAME_INTERVAL = 64;
+    static final int RAW = 0;
+    static final int RUNS = 1;
+    static final int DELTA = 2;
+    private static final int HEADER_INTS = 6;
+    private static final int INDEX_ENTRY_BYTES = 24;
+
+    private final FileChannel channel;
+    private final int N;
+    private final int sites;
+    private final int rawBytes; // N² / 8 redondeado para arriba
+    private long[] bits;
+    private long[] previous;
+    private final long[] changed;
+    private final ByteBuffer buffer;
+    private ByteBuffer index;
+    private long position;
+    private int frames;
+    private int base; // Último estado no DELTA
+
+    public SnapshotWriter(String path, int N, int every) throws IOException {
+        this.N = N;
+        this.sites = N * N;
+        this.rawBytes = (sites + 7) / 8;
+        int words = (sites + 63) / 64;
+        this.bits = new long[words];
+        this.previous = new long[words];
+        this.changed = new long[words];
+        // Espacio para los long completos de RAW, aunque se escriban solo rawBytes
+        this.buffer = ByteBuffer.allocate(Math.max(words * 8, HEADER_INTS * 4)).order(ByteOrder.LITTLE_ENDIAN);
+        this.index = ByteBuffer.allocate(64 * INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        buffer.clear();
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(N).putInt(every).putInt(KEYFRAME_INTERVAL).putInt(0);
+        write(buffer.flip());
+    }
+
+    public void write(int mcs, int[][] grid) throws IOException {
+        Arrays.fill(bits, 0);
+        for (int i = 0; i < N; i++) {
+            int[] row = grid[i];
+            for (int j = 0; j < N; j++) {
+                int s = i * N + j;
+                if (row[j] > 0) bits[s >>> 6] |= 1L << s;
+            }
+        }
+
+        int encoding = RAW;
+        int limit = rawBytes - 1; // Si las rachas ocupan más, RAW ocupa lo mismo o menos
+        if (frames % KEYFRAME_INTERVAL != 0) {
+            for (int w = 0; w < bits.length; w++) {
+                changed[w] = bits[w] ^ previous[w];
+            }
+            int deltaBytes = runBytes(changed, limit);
+            if (deltaBytes >= 0) {
+                encoding = DELTA;
+                limit = deltaBytes - 1;
+            }
+        }
+        if (runBytes(bits, limit) >= 0) encoding = RUNS;
+
+        buffer.clear();
+        if (encoding == RAW) {
+            for (long word : bits) {
+                buffer.putLong(word);
+            }
+            buffer.limit(rawBytes);
+        } else {
+            putRuns(encoding == DELTA ? changed : bits);
+        }
+        buffer.flip();
+        int length = buffer.remaining();
+        long offset = position;
+        write(buffer);
+
+        if (encoding != DELTA) base = frames;
+        if (index.remaining() < INDEX_ENTRY_BYTES) {
+            ByteBuffer grown = ByteBuffer.allocate(index.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            index.flip();
+            grown.put(index);
+            index = grown;
+        }
+        index.putLong(offset).putInt(length).putInt(mcs).putInt(encoding).putInt(base);
+        frames++;
+
+        long[] swap = previous;
+        previous = bits;
+        bits = swap;
+    }
+
+    // Bytes de las rachas alternadas de 0 y 1 de los sites bits, o -1 si son más que limit
+    private int runBytes(long[] words, int limit) {
+        int bytes = 0;
+        int bit = 0;
+        for (int pos = 0; pos < sites; bit ^= 1) {
+            int next = nextDifferent(words, pos, bit);
+            bytes += varintBytes(next - pos);
+            if (bytes > limit) return -1;
+            pos = next;
+        }
+        return bytes;
+    }
+
+    private void putRuns(long[] words) {
+        int bit = 0;
+        for (int pos = 0; pos < sites; bit ^= 1) {
+            int next = nextDifferent(words, pos, bit);
+            int run = next - pos;
+            while (run >= 0x80) {
+                buffer.put((byte) (run & 0x7F | 0x80));
+                run >>>= 7;
+            }
+            buffer.put((byte) run);
+            pos = next;
+        }
+    }
+
+    private static int varintBytes(int value) {
+        return Math.max(1, (38 - Integer.numberOfLeadingZeros(value)) / 7);
+    }
+
+    // Primera posición desde pos cuyo bit no es bit, o sites si no hay
+    private int nextDifferent(long[] words, int pos, int bit) {
+        long flip = bit == 0 ? 0 : -1L;
+        int w = pos >>> 6;
+        long word = (words[w] ^ flip) & (-1L << pos);
+        while (word == 0) {
+            if (++w == words.length) return sites;
+            word = words[w] ^ flip;
+        }
+        return Math.min(sites, w * 64 + Long.numberOfTrailingZeros(word));
+    }
+
+    private void write(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            position += channel.write(data);
+        }
+    }
+
+    // Escribe el índice y el cierre; sin esto el archivo no se puede leer
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = position;
+            write(index.flip());
+            buffer.clear();
+            buffer.putLong(indexOffset).putInt(frames).putInt(MAGIC);
+            write(buffer.flip());
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Corre en el mismo proceso las simulaciones de un barrido en p, una tarea por (p, réplica), de a
+ * parallelism a la vez. Cada tarea construye su MetropolisMonteCarloC sin archivo de configuración y
+ * escribe en sus propios archivos, así que no se pisan entre sí:
+ * la réplica 0 usa resultsDir/resultados_p<p>.txt (.snap con snapshotFormat binary) y
+ * resultsDir/magnetizacion_p<p>.txt, como antes, y la réplica r usa los mismos nombres dentro de
+ * resultsDir/replica<r>.
+ * La semilla de la réplica r es SEED + r, de modo que la réplica 0 reproduce la corrida de siempre.
+ * Los archivos se escriben con extensión .tmp y se renombran al terminar. Último se escribe
+ * tarea_p<p>.txt con los parámetros de la corrida (dinámica, N, pasos, formato de estados y semilla):
+ * al volver a correr el barrido se saltean solo las tareas cuyo archivo coincide con los parámetros
+ * actuales, así que cambiar por ejemplo la dinámica vuelve a correr todo.
+ */
+public class SweepScheduler {
+    static final long SEED = 12345; // La de MetropolisMonteCarloC con archivo de configuración
+
+    private final int N;
+    private final int monteCarloSteps;
+    private final String dynamics;
+    private final Path resultsDir;
+    private final int parallelism;
+    private String snapshotFormat = "text";
+    private int snapshotEvery = 10;
+
+    public SweepScheduler(int N, int monteCarloSteps, String dynamics, Path resultsDir, int parallelism) {
+        this.N = N;
+        this.monteCarloSteps = monteCarloSteps;
+        this.dynamics = dynamics;
+        this.resultsDir = resultsDir;
+        this.parallelism = parallelism;
+    }
+
+    // Formato ("text" o "binary") y cada cuántos pasos se guardan los estados de la grilla
+    public void setSnapshots(String format, int every) {
+        this.snapshotFormat = format;
+        this.snapshotEvery = every;
+    }
+
+    /**
+     * Corre las tareas que falten y devuelve cuántas fallaron; los errores se informan pero no frenan
+     * al resto.
+     */
+    public int run(double[] pValues, int replicas) throws InterruptedException {
+        List<double[]> pending = new ArrayList<>(); // {p, réplica}
+        int skipped = 0;
+        for (int replica = 0; replica < replicas; replica++) {
+            for (double p : pValues) {
+                if (isComplete(p, replica)) {
+                    skipped++;
+                } else {
+                    pending.add(new double[]{p, replica});
+                }
+            }
+        }
+        System.out.println("Tareas: " + pending.size() + " por correr, " + skipped + " ya completas, de a " + parallelism);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        AtomicInteger done = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(pending.size());
+        for (double[] task : pending) {
+            double p = task[0];
+            int replica = (int) task[1];
+            futures.add(executor.submit(() -> {
+                long start = System.currentTimeMillis();
+                runTask(p, replica);
+                System.out.println("p = " + p + ", réplica " + replica + ": " + (System.currentTimeMillis() - start)
+                        + " ms (" + done.incrementAndGet() + "/" + pending.size() + ")");
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        int failed = 0;
+        for (int k = 0; k < futures.size(); k++) {
+            try {
+                futures.get(k).get();
+            } catch (ExecutionException e) {
+                failed++;
+                System.err.println("Error en p = " + pending.get(k)[0] + ", réplica " + (int) pending.get(k)[1] + ": " + e.getCause());
+            }
+        }
+        return failed;
+    }
+
+    private void runTask(double p, int replica) throws IOException {
+        Files.createDirectories(replicaDir(replica));
+        Path manifest = manifestFile(p, replica);
+        Files.deleteIfExists(manifest);
+        Path output = outputFile(p, replica);
+        Path magnetization = magnetizationFile(p, replica);
+        Path outputTmp = output.resolveSibling(output.getFileName() + ".tmp");
+        Path magnetizationTmp = magnetization.resolveSibling(magnetization.getFileName() + ".tmp");
+
+        // Con dinámica checkerboard cada simulación usa un hilo: el paralelismo lo dan las tareas
+        MetropolisMonteCarloC simulation = new MetropolisMonteCarloC(N, p, dynamics, 1, SEED + replica);
+        simulation.setSnapshots(snapshotFormat, snapshotEvery);
+        simulation.runSimulation(monteCarloSteps, outputTmp.toString(), magnetizationTmp.toString());
+        Files.move(outputTmp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(magnetizationTmp, magnetization, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Los estados de una corrida anterior en el otro formato ya no corresponden a esta
+        Files.deleteIfExists(output.resolveSibling("resultados_p" + p + (snapshotFormat.equals("binary") ? ".txt" : ".snap")));
+        Path manifestTmp = manifest.resolveSibling(manifest.getFileName() + ".tmp");
+        Files.writeString(manifestTmp, manifest(replica));
+        Files.move(manifestTmp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean isComplete(double p, int replica) {
+        Path manifest = manifestFile(p, replica);
+        try {
+            return Files.exists(manifest) && Files.readString(manifest).equals(manifest(replica));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Todo lo que cambia los resultados de una tarea
+    private String manifest(int replica) {
+        return "dynamics=" + dynamics + "\nN=" + N + "\nmonteCarloSteps=" + monteCarloSteps + "\nsnapshotFormat=" + snapshotFormat
+                + "\nsnapshotEvery=" + snapshotEvery + "\nseed=" + (SEED + replica) + "\n";
+    }
+
+    private Path replicaDir(int replica) {
+        return replica == 0 ? resultsDir : resultsDir.resolve("replica" + replica);
+    }
+
+    Path outputFile(double p, int replica) {
+        return replicaDir(replica).resolve("resultados_p" + p + (snapshotFormat.equals("binary") ? ".snap" : ".txt"));
+    }
+
+    Path magnetizationFile(double p, int replica) {
+        return replicaDir(replica).resolve("magnetizacion_p" + p + ".txt");
+    }
+
+    Path manifestFile(double p, int replica) {
+        return replicaDir(replica).resolve("tarea_p" + p + ".txt");
+    }
+}
@@ -0,0 +1,76 @@
+import numpy as np
+
+# Formato escrito por SnapshotWriter.java (ver su documentación)
+MAGIC = 0x47325054
+VERSION = 1
+RAW, RUNS, DELTA = 0, 1, 2
+HEADER_BYTES = 24
+FOOTER_BYTES = 16
+INDEX_DTYPE = np.dtype([('offset', '<i8'), ('length', '<i4'), ('mcs', '<i4'),
+                        ('encoding', '<i4'), ('base', '<i4')])
+
+
+class SnapshotFile:
+    """Lee un archivo .snap con numpy.memmap: solo se leen del disco los estados que se piden.
+
+    snapshots[k] es el estado k como matriz NxN de -1 y 1, y mcs[k] su paso de Monte Carlo.
+    Recorrerlos en orden decodifica cada estado una sola vez.
+    """
+
+    def __init__(self, path):
+        self.data = np.memmap(path, dtype=np.uint8, mode='r')
+        magic, version, self.N, self.every, self.keyframe_interval, _ = \
+            np.frombuffer(self.data, dtype='<i4', count=6).tolist()
+        if magic != MAGIC or version != VERSION:
+            raise ValueError(f"{path} no es un archivo de estados de la versión {VERSION}")
+        index_offset = int(np.frombuffer(self.data, dtype='<i8', count=1, offset=len(self.data) - FOOTER_BYTES)[0])
+        count, end_magic = np.frombuffer(self.data, dtype='<i4', count=2,
+                                         offset=len(self.data) - FOOTER_BYTES + 8).tolist()
+        if end_magic != MAGIC:
+            raise ValueError(f"{path} está incompleto (¿la simulación no terminó?)")
+        self.index = np.frombuffer(self.data, dtype=INDEX_DTYPE, count=count, offset=index_offset)
+        self.mcs = self.index['mcs']
+        self.sites = self.N * self.N
+        self._last = None  # (k, bits) del último estado decodificado
+
+    def __len__(self):
+        return len(self.index)
+
+    def __getitem__(self, k):
+        if k < 0:
+            k += len(self)
+        if not 0 <= k < len(self):
+            raise IndexError(k)
+        return self.bits(k).reshape(self.N, self.N).astype(np.int8) * 2 - 1
+
+    def bits(self, k):
+        """Estado k como arreglo plano de N² bits (1 = +1) en orden de filas."""
+        entry = self.index[k]
+        if self._last is not None and self._last[0] == k:
+            return self._last[1]
+        if entry['encoding'] == DELTA and self._last is not None and entry['base'] <= self._last[0] < k:
+            start, state = self._last[0] + 1, self._last[1].copy()
+        else:
+            start, state = entry['base'] + 1, self._decode(entry['base'])
+        for frame in range(start, k + 1):
+            state ^= self._decode(frame)
+        self._last = (k, state)
+        return state
+
+    def magnetization(self):
+        """|M| de cada estado."""
+        return np.array([abs(2.0 * np.count_nonzero(self.bits(k)) / self.sites - 1) for k in range(len(self))])
+
+    def _decode(self, k):
+        # Los bits del estado k, o los que cambiaron respecto del anterior si es DELTA
+        offset, length, encoding = (int(self.index[k][name]) for name in ('offset', 'length', 'encoding'))
+        if encoding == RAW:
+            return np.unpackbits(self.data[offset:offset + length], bitorder='little')[:self.sites]
+        # Largos de las rachas en LEB128: cada uno termina en el primer byte con el bit alto en 0
+        data = self.data[offset:offset + length]
+        ends = np.flatnonzero(data < 0x80)
+        starts = np.concatenate(([0], ends[:-1] + 1))
+        shifts = 7 * (np.arange(length) - np.repeat(starts, ends - starts + 1))
+        runs = np.add.reduceat((data & 0x7F).astype(np.int64) << shifts, starts)
+        values = (np.arange(len(runs)) % 2).astype(np.uint8)  # Rachas alternadas, la primera de 0
+        return np.repeat(values, runs)
@@ -6,6 +6,7 @@ import argparse
 import configparser
 import re
 import os
+from snapshots import SnapshotFile
 
 class GridVisualizer:
     def __init__(self, results_file, config_file, fps):
@@ -15,12 +16,26 @@ class GridVisualizer:
         self.frames = []
         self.grid_size = 0
         self.mcs_numbers = []  # Para almacenar los números de pasos MCS
-        self.load_config()
-        self.load_data()
+        self.snapshots = None
+        if results_file.endswith('.snap'):
+            self.load_snapshots()
+        else:
+            self.load_config()
+            self.load_data()
+
+    def load_snapshots(self):
+        """Abre un archivo binario de SnapshotWriter: N sale del archivo y los frames se leen a medida que se usan"""
+        self.snapshots = SnapshotFile(self.results_file)
+        self.grid_size = self.snapshots.N
+        self.frames = self.snapshots
+        self.mcs_numbers = self.snapshots.mcs.tolist()
+        print(f"Tamaño de la grilla: {self.grid_size}x{self.grid_size}, {len(self.frames)} pasos de Monte Carlo guardados")
 
     def load_config(self):
         """Carga la configuración desde el archivo de configuración"""
         # Si el archivo de configuración es de tipo .properties
+        if self.config_file is None:
+            raise SystemExit("Falta el archivo de configuración (solo los .snap no lo necesitan)")
         if self.config_file.endswith('.properties'):
             with open(self.config_file, 'r') as f:
                 for line in f:
@@ -140,7 +155,10 @@ class GridVisualizer:
 
     def calculate_magnetization(self):
         """Calcula la magnetización promedio para cada paso de Monte Carlo"""
-        magnetizations = [np.abs(np.mean(frame)) for frame in self.frames]
+        if self.snapshots is not None:
+            magnetizations = self.snapshots.magnetization()
+        else:
+            magnetizations = [np.abs(np.mean(frame)) for frame in self.frames]
 
         plt.figure(figsize=(10, 6))
         plt.plot(self.mcs_numbers, magnetizations, '-o')
@@ -155,8 +173,8 @@ class GridVisualizer:
 
 if __name__ == "__main__":
     parser = argparse.ArgumentParser(description='Visualizador de simulación de Metropolis-Monte Carlo')
-    parser.add_argument('results_file', help='Archivo de resultados generado por la simulación')
-    parser.add_argument('config_file', help='Archivo de configuración con los parámetros N y p')
+    parser.add_argument('results_file', help='Archivo de resultados generado por la simulación (.txt o .snap)')
+    parser.add_argument('config_file', nargs='?', help='Archivo de configuración con los parámetros N y p (no hace falta con .snap)')
     parser.add_argument('--fps', type=int, help='Frames por segundo para la animación (default: 5)')
     parser.add_argument('--output', '-o', help='Archivo de salida para la animación (opcional)')
     parser.add_argument('--step', '-s', type=int, help='Mostrar un paso específico (opcional)')
@@ -144,30 +144,13 @@ public class CollisionSystem {
         Particle[] particles = new Particle[N];
         Random rand = new Random();
 
-        double containerLimit = L/2 - r;
-        double obstacleLimitSq = (R_obs + r) * (R_obs + r);
-
+        // Posiciones sin superposición usando una grilla de celdas (ver ParticlePlacer)
+        double[][] positions = ParticlePlacer.circularContainer(L/2, R_obs, r, rand).place(N);
         for (int i = 0; i < N; i++) {
-            boolean placed = false;
-            while (!placed) {
-                double x = (rand.nextDouble()*2 - 1) * containerLimit;
-                double y = (rand.nextDouble()*2 - 1) * containerLimit;
-                double distSq = x*x + y*y;
-                if (distSq > containerLimit*containerLimit) continue;
-                if (distSq < obstacleLimitSq) continue;
-                boolean ok = true;
-                for (int j = 0; j < i; j++) {
-                    double dx = x - particles[j].x;
-                    double dy = y - particles[j].y;
-                    if (dx*dx + dy*dy < 4*r*r) { ok = false; break; }
-                }
-                if (!ok) continue;
-                double theta = 2*Math.PI*rand.nextDouble();
-                double vx = v0*Math.cos(theta);
-                double vy = v0*Math.sin(theta);
-                particles[i] = new Particle(x, y, vx, vy, r, m);
-                placed = true;
-            }
+            double theta = 2*Math.PI*rand.nextDouble();
+            double vx = v0*Math.cos(theta);
+            double vy = v0*Math.sin(theta);
+            particles[i] = new Particle(positions[0][i], positions[1][i], vx, vy, r, m);
         }
 
         CollisionSystem sim = new CollisionSystem(particles, L, R_obs);
@@ -109,37 +109,15 @@ public class EventDrivenMolecularDynamics {
         // Crear la partícula especial en el centro
         particles[0] = new Particle(0.0, 0.0, 0.0, 0.0, R, 3.0, true);
 
-        // Crear las N partículas normales
+        // Crear las N partículas normales sin superposición, con la especial como obstáculo central
+        double[][] positions = ParticlePlacer.circularContainer(L/2, R, r, random).place(N);
         for (int i = 1; i <= N; i++) {
-            double x, y;
-            boolean overlap;
-
-            do {
-                // Generar posición aleatoria dentro del recinto
-                double radius = random.nextDouble() * (L/2 - r - EPSILON);
-                double angle = random.nextDouble() * 2 * Math.PI;
-                x = radius * Math.cos(angle);
-                y = radius * Math.sin(angle);
-
-                // Verificar que no haya superposición con partículas existentes
-                overlap = false;
-                for (int j = 0; j < i; j++) {
-                    double dx = x - particles[j].x;
-                    double dy = y - particles[j].y;
-                    double minDist = (j == 0) ? r + R : r + r;
-                    if (dx * dx + dy * dy < minDist * minDist) {
-                        overlap = true;
-                        break;
-                    }
-                }
-            } while (overlap);
-
             // Generar velocidad aleatoria
             double angle = random.nextDouble() * 2 * Math.PI;
             double vx = v0 * Math.cos(angle);
             double vy = v0 * Math.sin(angle);
 
-            particles[i] = new Particle(x, y, vx, vy, r, 1.0, false);
+            particles[i] = new Particle(positions[0][i - 1], positions[1][i - 1], vx, vy, r, 1.0, false);
         }
 
         // Programar todos los eventos iniciales
@@ -0,0 +1,236 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Coloca N partículas de radio r sin superposición, en un recinto circular con obstáculo central
+ * o en una caja cuadrada periódica. Igual que el Cell Index Method del TP1, el espacio se divide en
+ * celdas de lado >= 2r, así que cada candidata solo se compara contra las partículas de su celda y
+ * las 8 vecinas en lugar de contra todas las ya colocadas. Si el muestreo por rechazo se traba
+ * (MAX_ATTEMPTS intentos fallidos seguidos, lo que pasa cerca de su límite de empaquetamiento)
+ * todas las partículas pasan a una red triangular con ruido.
+ */
+public class ParticlePlacer {
+    private static final double EPSILON = 1e-10; // Margen contra las paredes
+    private static final int MAX_ATTEMPTS = 1000;
+    private static final double LATTICE_SHRINK = 0.98;
+
+    private final boolean periodic;
+    private final double side; // Lado de la caja (o diámetro del recinto)
+    private final double innerLimitSq; // Distancia mínima al centro al cuadrado
+    private final double outerLimitSq; // Distancia máxima al centro al cuadrado
+    private final double radius;
+    private final Random random;
+
+    // Grilla de celdas con listas enlazadas: head[celda] es la última partícula de la celda y next[i] la anterior
+    private final int m;
+    private final double cellLen;
+    private int[] head;
+    private int[] next;
+    private double[] x;
+    private double[] y;
+    private int placed;
+    private boolean usedLattice;
+
+    private ParticlePlacer(boolean periodic, double side, double innerLimit, double outerLimit, double radius, Random random) {
+        this.periodic = periodic;
+        this.side = side;
+        this.innerLimitSq = innerLimit * innerLimit;
+        this.outerLimitSq = outerLimit * outerLimit;
+        this.radius = radius;
+        this.random = random;
+        this.m = Math.max(1, (int) Math.floor(side / (2 * radius)));
+        this.cellLen = side / m;
+    }
+
+    /**
+     * Recinto circular de radio containerRadius centrado en el origen, con un obstáculo fijo de radio
+     * obstacleRadius en el centro (0 si no hay).
+     */
+    public static ParticlePlacer circularContainer(double containerRadius, double obstacleRadius, double radius, Random random) {
+        return new ParticlePlacer(false, 2 * containerRadius, obstacleRadius > 0 ? obstacleRadius + radius : 0,
+                containerRadius - radius - EPSILON, radius, random);
+    }
+
+    // Caja [0, side) x [0, side) con contorno periódico en ambos ejes
+    public static ParticlePlacer periodicBox(double side, double radius, Random random) {
+        return new ParticlePlacer(true, side, 0, Double.POSITIVE_INFINITY, radius, random);
+    }
+
+    /**
+     * Devuelve {x, y} con las posiciones de las n partículas. Lanza IllegalStateException si ni la
+     * red más densa posible alcanza.
+     */
+    public double[][] place(int n) {
+        head = new int[m * m];
+        Arrays.fill(head, -1);
+        next = new int[n];
+        x = new double[n];
+        y = new double[n];
+        placed = 0;
+        usedLattice = false;
+
+        int failures = 0;
+        while (placed < n && failures < MAX_ATTEMPTS) {
+            double px;
+            double py;
+            if (periodic) {
+                px = random.nextDouble() * side;
+                py = random.nextDouble() * side;
+            } else {
+                // Uniforme en el área del anillo entre el obstáculo y la pared
+                double outerSq = Math.max(outerLimitSq, innerLimitSq);
+                double rho = Math.sqrt(innerLimitSq + random.nextDouble() * (outerSq - innerLimitSq));
+                double angle = random.nextDouble() * 2 * Math.PI;
+                px = rho * Math.cos(angle);
+                py = rho * Math.sin(angle);
+            }
+            if (tryPlace(px, py)) {
+                failures = 0;
+            } else {
+                failures++;
+            }
+        }
+        if (placed < n) placeOnLattice(n);
+        return new double[][]{x, y};
+    }
+
+    // Red triangular con ruido: se descarta lo colocado por rechazo y se usan n sitios al azar de la red más espaciada
+    // que tenga lugar para todas; el paso arranca en el que llenaría el área libre y se achica hasta que entren
+    private void placeOnLattice(int n) {
+        double freeArea = periodic ? side * side : Math.PI * (outerLimitSq - innerLimitSq);
+        double spacing = Math.sqrt(2 * freeArea / (Math.sqrt(3) * n));
+        // Paso mínimo apenas mayor a 2r para que el redondeo no rechace sitios que se tocan
+        double minSpacing = 2 * radius * (1 + 1e-9);
+        spacing = Math.max(spacing, minSpacing);
+        while (true) {
+            Arrays.fill(head, -1);
+            placed = 0;
+            double[] sites = latticeSites(spacing);
+            int count = sites.length / 2;
+            int[] order = new int[count];
+            for (int k = 0; k < count; k++) {
+                order[k] = k;
+            }
+            // Ruido de hasta (paso - 2r) / 2, así dos sitios vecinos nunca se superponen
+            double jitter = (spacing - 2 * radius) / 2;
+            for (int k = 0; k < count && placed < n; k++) {
+                int pick = k + random.nextInt(count - k);
+                int site = order[pick];
+                order[pick] = order[k];
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double shift = random.nextDouble() * jitter;
+                double px = sites[2 * site];
+                double py = sites[2 * site + 1];
+                if (!tryPlace(px + shift * Math.cos(angle), py + shift * Math.sin(angle))) tryPlace(px, py);
+            }
+            if (placed == n) {
+                usedLattice = true;
+                return;
+            }
+            if (spacing == minSpacing) throw new IllegalStateException("No entran " + n + " partículas de radio " + radius);
+            spacing = Math.max(minSpacing, spacing * LATTICE_SHRINK);
+        }
+    }
+
+    // Sitios de la red triangular de paso spacing que cubre el recinto, intercalados x, y
+    private double[] latticeSites(double spacing) {
+        double rowHeight = spacing * Math.sqrt(3) / 2;
+        double origin = periodic ? 0 : -side / 2;
+        int rows = (int) Math.ceil(side / rowHeight) + 1;
+        int columns = (int) Math.ceil(side / spacing) + 1;
+        // En la caja periódica la red no puede pasar el borde: filas y columnas completas y un número par de filas
+        if (periodic) {
+            rows = Math.max(2, (int) Math.floor(side / rowHeight) / 2 * 2);
+            columns = Math.max(1, (int) Math.floor(side / spacing));
+        }
+        double[] sites = new double[2 * rows * columns];
+        int k = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                sites[k++] = origin + (column + (row % 2) * 0.5) * spacing;
+                sites[k++] = origin + row * rowHeight;
+            }
+        }
+        return sites;
+    }
+
+    // Agrega la partícula si está dentro del recinto y no se superpone con nadie en las 9 celdas vecinas
+    // (con menos de 3 celdas por eje alguna se revisa dos veces, lo que no cambia el resultado)
+    private boolean tryPlace(double px, double py) {
+        if (periodic) {
+            px -= side * Math.floor(px / side);
+            py -= side * Math.floor(py / side);
+        } else {
+            double distSq = px * px + py * py;
+            if (distSq > outerLimitSq || distSq < innerLimitSq) return false;
+        }
+        int cx = cellOf(px);
+        int cy = cellOf(py);
+        double minDistSq = 4 * radius * radius;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int nx = cx + dx;
+                int ny = cy + dy;
+                if (periodic) {
+                    nx = (nx + m) % m;
+                    ny = (ny + m) % m;
+                } else if (nx < 0 || nx >= m || ny < 0 || ny >= m) {
+                    continue;
+                }
+                for (int j = head[nx + m * ny]; j >= 0; j = next[j]) {
+                    double ddx = px - x[j];
+                    double ddy = py - y[j];
+                    if (periodic) {
+                        ddx -= side * Math.rint(ddx / side);
+                        ddy -= side * Math.rint(ddy / side);
+                    }
+                    if (ddx * ddx + ddy * ddy < minDistSq) return false;
+                }
+            }
+        }
+        x[placed] = px;
+        y[placed] = py;
+        int cell = cx + m * cy;
+        next[placed] = head[cell];
+        head[cell] = placed;
+        placed++;
+        return true;
+    }
+
+    private int cellOf(double coord) {
+        double shifted = periodic ? coord : coord + side / 2;
+        return Math.max(0, Math.min(m - 1, (int) Math.floor(shifted / cellLen)));
+    }
+
+    // Si la última colocación terminó en la red
+    public boolean usedLattice() {
+        return usedLattice;
+    }
+
+    /**
+     * Genera un archivo dinámico con el formato de particles_generator.py del TP1 ("0" y después
+     * "x y" por partícula) pero sin superposiciones, en una caja periódica.
+     * Argumentos: N, L, radio y opcionalmente la semilla.
+     */
+    public static void main(String[] args) throws IOException {
+        int n = Integer.parseInt(args[0]);
+        double l = Double.parseDouble(args[1]);
+        double r = Double.parseDouble(args[2]);
+        Random random = args.length > 3 ? new Random(Long.parseLong(args[3])) : new Random();
+
+        long start = System.currentTimeMillis();
+        ParticlePlacer placer = periodicBox(l, r, random);
+        double[][] positions = placer.place(n);
+        System.out.println("Colocadas " + n + " partículas en " + (System.currentTimeMillis() - start) + " ms" + (placer.usedLattice() ? " (en red)" : ""));
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter("Dynamic" + n + ".txt"))) {
+            writer.write("0\n");
+            for (int i = 0; i < n; i++) {
+                writer.write(positions[0][i] + " " + positions[1][i] + "\n");
+            }
+        }
+    }
+}